@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares per-character escaping with the bulk range escaping of {@link Escaper},
+ * and with escapers built by {@link EscaperBuilder}, on ASCII-heavy, CJK and
+ * emoji (surrogate pair) payloads.
+ * 
+ * @author Doug Valenta
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EscaperBenchmark {
+	
+	private static final Escaper HTML_ESCAPER = new Escaper() {
+		
+		@Override
+		public void escape(final char character, final Appendable appendable) throws IOException {
+			switch (character) {
+				case '<':
+					appendable.append("&lt;");
+					break;
+				case '>':
+					appendable.append("&gt;");
+					break;
+				case '&':
+					appendable.append("&amp;");
+					break;
+				case '"':
+					appendable.append("&quot;");
+					break;
+				default:
+					appendable.append(character);
+			}
+		}
+		
+		@Override
+		public boolean requiresEscape(final char character) {
+			return character == '<' || character == '>' || character == '&' || character == '"';
+		}
+		
+	};
+	
+	private static final Escaper TABLE_ESCAPER = new EscaperBuilder()
+			.escape('<', "&lt;")
+			.escape('>', "&gt;")
+			.escape('&', "&amp;")
+			.escape('"', "&quot;")
+			.build();
+			
+	@Param({"ascii", "cjk", "emoji"})
+	private String text;
+	
+	@Param({"16", "1024", "65536"})
+	private int length;
+	
+	@Param({"0", "64"})
+	private int escapeInterval;
+	
+	private String payload;
+	private StringBuilder builder;
+	
+	@Setup
+	public void setUp() {
+		final StringBuilder payloadBuilder = new StringBuilder(length);
+		for (int index = 0; payloadBuilder.length() < length; index++) {
+			if (escapeInterval > 0 && index % escapeInterval == escapeInterval - 1) {
+				payloadBuilder.append('&');
+			} else if (index % 8 == 7) {
+				payloadBuilder.append(' ');
+			} else {
+				switch (text) {
+					case "cjk":
+						payloadBuilder.append((char) (0x4e00 + index % 512));
+						break;
+					case "emoji":
+						payloadBuilder.appendCodePoint(0x1f600 + index % 64);
+						break;
+					default:
+						payloadBuilder.append((char) ('a' + index % 26));
+				}
+			}
+		}
+		payloadBuilder.setLength(length);
+		payload = payloadBuilder.toString();
+		builder = new StringBuilder(length * 2);
+	}
+	
+	@Benchmark
+	public StringBuilder perCharacter() throws IOException {
+		builder.setLength(0);
+		for (int index = 0; index < payload.length(); index++) {
+			HTML_ESCAPER.escape(payload.charAt(index), builder);
+		}
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder bulk() throws IOException {
+		builder.setLength(0);
+		HTML_ESCAPER.escape(payload, builder);
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder table() throws IOException {
+		builder.setLength(0);
+		TABLE_ESCAPER.escape(payload, builder);
+		return builder;
+	}
+	
+}
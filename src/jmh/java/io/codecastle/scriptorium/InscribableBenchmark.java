@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IOFunction;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures dispatch through {@link Inscribable} and {@link FluentNode}: deep
+ * {@code inscribe}/{@code then} nesting, with linked nodes and with recycled nodes on
+ * a {@link NodeStack}, and the {@code withEach} defaults over arrays and iterables.
+ * 
+ * @author Doug Valenta
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InscribableBenchmark {
+	
+	/**
+	 * A minimal node that outputs a bracket when opened and when closed, and closes
+	 * its open child before closing itself.
+	 */
+	static final class Node implements Inscribable<Node, Node>, FluentNode<Node> {
+		
+		private final StringBuilder builder;
+		private final Node parent;
+		private Node child;
+		private boolean closed;
+		
+		Node(final StringBuilder builder, final Node parent) {
+			this.builder = builder;
+			this.parent = parent;
+			builder.append('[');
+		}
+		
+		Node child() {
+			if (child != null) child.close();
+			child = new Node(builder, this);
+			return child;
+		}
+		
+		Node value(final Object value) {
+			builder.append(value).append(',');
+			return this;
+		}
+		
+		@Override
+		public <T extends FluentNode<Node>> T inscribe(final IOFunction<? super Node, T> function) throws IOException {
+			return function.apply(this);
+		}
+		
+		@Override
+		public Node with(final IOConsumer<? super Node> consumer) throws IOException {
+			consumer.accept(this);
+			return this;
+		}
+		
+		@Override
+		public <T> Node with(final T element, final IOBiConsumer<? super T, ? super Node> biConsumer) throws IOException {
+			biConsumer.accept(element, this);
+			return this;
+		}
+		
+		@Override
+		public Node then() {
+			close();
+			return parent;
+		}
+		
+		@Override
+		public void close() {
+			if (!closed) {
+				if (child != null) child.close();
+				closed = true;
+				builder.append(']');
+			}
+		}
+		
+	}
+	
+	/**
+	 * The same node built on {@link AbstractInscribable}, reusing one child object per
+	 * node.
+	 */
+	static final class StackNode extends AbstractInscribable<StackNode, StackNode, StackNode> {
+		
+		private final StringBuilder builder;
+		private StackNode child;
+		
+		StackNode(final NodeStack stack, final StringBuilder builder) {
+			super(stack);
+			this.builder = builder;
+		}
+		
+		StackNode root() {
+			open(null);
+			builder.append('[');
+			return this;
+		}
+		
+		StackNode child() throws IOException {
+			if (child == null) child = new StackNode(stack(), builder);
+			openChild(child);
+			builder.append('[');
+			return child;
+		}
+		
+		@Override
+		protected StackNode inscribed() {
+			return this;
+		}
+		
+		@Override
+		protected void onClose() {
+			builder.append(']');
+		}
+		
+	}
+	
+	private static final IOFunction<Node, Node> CHILD = Node::child;
+	private static final IOFunction<StackNode, StackNode> STACK_CHILD = StackNode::child;
+	private static final IOBiConsumer<Integer, Node> VALUE = (element, node) -> node.value(element);
+	
+	@Param({"1", "8", "64"})
+	private int depth;
+	
+	@Param({"10", "1000"})
+	private int size;
+	
+	private StringBuilder builder;
+	private StackNode stackRoot;
+	private Integer[] array;
+	private List<Integer> list;
+	private Iterable<Integer> iterable;
+	
+	@Setup
+	public void setUp() {
+		builder = new StringBuilder(size * 8 + depth * 2 + 2);
+		array = new Integer[size];
+		list = new ArrayList<>(size);
+		for (int index = 0; index < size; index++) {
+			array[index] = index;
+			list.add(index);
+		}
+		iterable = list::iterator;
+		stackRoot = new StackNode(new NodeStack(), builder);
+	}
+	
+	private static Node nest(final Node node, final int depth) throws IOException {
+		if (depth > 0) nest(node.inscribe(CHILD), depth - 1).then();
+		return node;
+	}
+	
+	@Benchmark
+	public StringBuilder inscribeThen() throws IOException {
+		builder.setLength(0);
+		nest(new Node(builder, null), depth).close();
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder closeFromRoot() throws IOException {
+		builder.setLength(0);
+		final Node root = new Node(builder, null);
+		Node node = root;
+		for (int level = 0; level < depth; level++) {
+			node = node.inscribe(CHILD);
+		}
+		root.close();
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder closeFromRootOnStack() throws IOException {
+		builder.setLength(0);
+		final StackNode root = stackRoot.root();
+		StackNode node = root;
+		for (int level = 0; level < depth; level++) {
+			node = node.inscribe(STACK_CHILD);
+		}
+		root.close();
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder withEachArray() throws IOException {
+		builder.setLength(0);
+		new Node(builder, null).withEach(array, VALUE).close();
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder withEachList() throws IOException {
+		builder.setLength(0);
+		new Node(builder, null).withEach(list, VALUE).close();
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder withEachIterable() throws IOException {
+		builder.setLength(0);
+		new Node(builder, null).withEach(iterable, VALUE).close();
+		return builder;
+	}
+	
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Whitespace;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Whitespace} runs of various lengths, including runs longer than
+ * the precomputed fill strings.
+ * 
+ * @author Doug Valenta
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WhitespaceBenchmark {
+	
+	@Param({"1", "4", "16", "256", "1000"})
+	private int count;
+	
+	private StringBuilder builder;
+	private Whitespace whitespace;
+	
+	@Setup
+	public void setUp() {
+		builder = new StringBuilder(count * 2);
+		whitespace = new Whitespace(builder);
+	}
+	
+	@Benchmark
+	public StringBuilder spaces() throws IOException {
+		builder.setLength(0);
+		whitespace.spaces(count);
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder tabs() throws IOException {
+		builder.setLength(0);
+		whitespace.tabs(count);
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder newlines() throws IOException {
+		builder.setLength(0);
+		whitespace.newlines(count);
+		return builder;
+	}
+	
+	@Benchmark
+	public StringBuilder singleSpaces() throws IOException {
+		builder.setLength(0);
+		for (int index = 0; index < count; index++) {
+			whitespace.space();
+		}
+		return builder;
+	}
+	
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IOFunction;
+import io.codecastle.scriptorium.scribe.Escaper;
+import java.io.IOException;
+
+/**
+ * A base for nodes that are both {@link Inscribable} and {@link FluentNode}, which
+ * tracks open nodes on a {@link NodeStack} shared by the whole document.
+ * 
+ * <p>
+ * A node is opened by {@link #open(Object)}, which pushes it onto the stack, and is
+ * closed when it or any node below it on the stack is closed. Closing calls
+ * {@link #onClose()} on each node being closed, innermost first, without recursion.
+ * Before a node inscribes a child or calls a consumer, and again after the consumer
+ * returns, any nodes still open above it are closed.
+ * 
+ * <p>
+ * A node that has been closed, for example once {@link #then()} has returned, may be
+ * opened again. Subclasses can therefore keep one child object per node and reopen
+ * it with {@link #openChild(AbstractInscribable)}, so no node is allocated per
+ * element.
+ * 
+ * <p>
+ * A node whose content is escaped overrides {@link #escaper()}. When it is opened
+ * within a node of another format, {@link #contextEscaper()} returns its escaper
+ * fused with the context escaper of its parent, so that, e.g., JSON within an HTML
+ * document is escaped for both formats in a single pass. Fused escapers are cached
+ * by the {@link NodeStack}, so nodes opened within the same context share one,
+ * whether they are reopened or allocated per element.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ * @param <I> the inscribed type
+ * @param <THIS> this type
+ * @param <P> the parent type
+ */
+public abstract class AbstractInscribable<I, THIS extends AbstractInscribable<I, THIS, P>, P> implements Inscribable<I, THIS>, FluentNode<P> {
+	
+	private static final int CLOSED = -1;
+	
+	private final NodeStack stack;
+	private P parent;
+	private int position = CLOSED;
+	private Escaper context;
+	
+	/**
+	 * The escaper of the innermost node, this node or an ancestor, that has one.
+	 */
+	private Escaper format;
+	
+	/**
+	 * Constructs a new, closed node that will be opened on the provided stack.
+	 * 
+	 * @param stack the stack of the document this node belongs to
+	 */
+	protected AbstractInscribable(final NodeStack stack) {
+		if (stack == null) throw new NullPointerException("stack");
+		this.stack = stack;
+	}
+	
+	/**
+	 * Returns the stack of the document this node belongs to.
+	 * 
+	 * @return this node's stack
+	 */
+	protected final NodeStack stack() {
+		return stack;
+	}
+	
+	/**
+	 * Returns the instance of the inscribed type to pass to consumers.
+	 * 
+	 * @return the instance of the inscribed type
+	 */
+	protected abstract I inscribed();
+	
+	/**
+	 * Called once each time this node is closed, after any nodes above it have been
+	 * closed, e.g. to output a closing tag.
+	 * 
+	 * <p>
+	 * The default implementation does nothing.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	protected void onClose() throws IOException {
+	}
+	
+	/**
+	 * Returns the escaper for the content of this node alone, or null if its content
+	 * is escaped only as its parent's content is.
+	 * 
+	 * <p>
+	 * The default implementation returns null.
+	 * 
+	 * @return the escaper for this node's content, or null
+	 */
+	protected Escaper escaper() {
+		return null;
+	}
+	
+	/**
+	 * Returns the escaper for content output by this node within the document, which
+	 * is this node's {@link #escaper()} followed by the context escaper of its parent,
+	 * if its parent is also an {@code AbstractInscribable}. Either may be absent; the
+	 * result is null if both are.
+	 * 
+	 * <p>
+	 * A node whose escaper is the same instance as that of the innermost enclosing
+	 * node with an escaper, e.g. HTML within HTML, is in the same format as its
+	 * parent, and its context escaper is its parent's. The escaper is chosen when this
+	 * node is opened.
+	 * 
+	 * @return the escaper for this node's content in its context, or null
+	 */
+	protected final Escaper contextEscaper() {
+		return context;
+	}
+	
+	/**
+	 * Opens this node on top of the stack, with the provided parent, and returns this
+	 * object.
+	 * 
+	 * @param parent the object to return from {@link #then()}
+	 * @return this object
+	 * @throws IllegalStateException if this node is already open
+	 */
+	protected final THIS open(final P parent) {
+		if (position != CLOSED) throw new IllegalStateException("Node is already open");
+		this.parent = parent;
+		enterContext(escaper(), parent instanceof AbstractInscribable ? (AbstractInscribable<?, ?, ?>) parent : null);
+		this.position = stack.push(this);
+		return (THIS) this;
+	}
+	
+	/**
+	 * Chooses the context escaper for this node's escaper within the provided parent,
+	 * fusing them only at a boundary between formats.
+	 */
+	private void enterContext(final Escaper own, final AbstractInscribable<?, ?, ?> outer) {
+		if (outer == null || outer.context == null) {
+			context = own;
+			format = own;
+		} else if (own == null || own == outer.format) {
+			context = outer.context;
+			format = outer.format;
+		} else {
+			context = stack.fuse(own, outer.context);
+			format = own;
+		}
+	}
+	
+	/**
+	 * Closes any nodes above this node, then opens the provided node as a child of
+	 * this node and returns it.
+	 * 
+	 * @param <C> the child type
+	 * @param child the closed node to open
+	 * @return the provided node
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if this node is closed, or the child is open
+	 */
+	protected final <C extends AbstractInscribable<?, ?, ? super THIS>> C openChild(final C child) throws IOException {
+		closeChildren();
+		child.open((THIS) this);
+		return child;
+	}
+	
+	/**
+	 * Closes any nodes above this node on the stack.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if this node is closed
+	 */
+	protected final void closeChildren() throws IOException {
+		if (position == CLOSED) throw new IllegalStateException("Node is closed");
+		stack.closeFrom(position + 1);
+	}
+	
+	/**
+	 * Returns whether this node is open.
+	 * 
+	 * @return true if this node has been opened and not closed since, otherwise false
+	 */
+	public boolean isOpen() {
+		return position != CLOSED;
+	}
+	
+	/**
+	 * Called by the stack when this node has been removed from it.
+	 */
+	final void closed() throws IOException {
+		position = CLOSED;
+		parent = null;
+		onClose();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * This implementation closes any nodes above this node before calling the function.
+	 */
+	@Override
+	public <T extends FluentNode<THIS>> T inscribe(final IOFunction<? super THIS, T> function) throws IOException {
+		closeChildren();
+		if (stack.listener != null) stack.listener.inscribed(getClass());
+		return function.apply((THIS) this);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * This implementation closes any nodes above this node before calling the consumer,
+	 * and any nodes the consumer left open after it returns, unless the consumer closed
+	 * this node.
+	 */
+	@Override
+	public THIS with(final IOConsumer<? super I> consumer) throws IOException {
+		closeChildren();
+		if (stack.listener != null) stack.listener.called(getClass());
+		consumer.accept(inscribed());
+		if (position != CLOSED) closeChildren();
+		return (THIS) this;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * This implementation closes any nodes above this node before calling the bi-consumer,
+	 * and any nodes the bi-consumer left open after it returns, unless the bi-consumer
+	 * closed this node.
+	 */
+	@Override
+	public <T> THIS with(final T element, final IOBiConsumer<? super T, ? super I> biConsumer) throws IOException {
+		closeChildren();
+		if (stack.listener != null) stack.listener.called(getClass());
+		biConsumer.accept(element, inscribed());
+		if (position != CLOSED) closeChildren();
+		return (THIS) this;
+	}
+	
+	@Override
+	public P then() throws IOException {
+		final P result = parent;
+		close();
+		return result;
+	}
+	
+	/**
+	 * Closes any nodes above this node, innermost first, then this node. Calling this
+	 * method on a closed node has no effect.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (position != CLOSED) {
+			stack.closeFrom(position);
+		}
+	}
+	
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+/**
+ * Implements {@link NodeListener#of(NodeListener...)}.
+ * 
+ * <p>
+ * Listeners are called in order when a node is opened or used, and in reverse order
+ * when it is closed, so that each listener's calls nest within the next one's.
+ * 
+ * @author Doug Valenta
+ */
+final class CompositeNodeListener implements NodeListener {
+	
+	private final NodeListener[] listeners;
+	
+	CompositeNodeListener(final NodeListener[] listeners) {
+		this.listeners = listeners;
+	}
+	
+	@Override
+	public void opened(final Class<?> type, final int depth) {
+		for (NodeListener listener : listeners) {
+			listener.opened(type, depth);
+		}
+	}
+	
+	@Override
+	public void closed(final Class<?> type, final int depth) {
+		closed(type, depth, listeners.length - 1);
+	}
+	
+	/**
+	 * Calls the listeners from the provided index down, each in a {@code finally}
+	 * block, so that one that throws does not prevent the others from being called.
+	 */
+	private void closed(final Class<?> type, final int depth, final int index) {
+		try {
+			listeners[index].closed(type, depth);
+		} finally {
+			if (index > 0) closed(type, depth, index - 1);
+		}
+	}
+	
+	@Override
+	public void inscribed(final Class<?> type) {
+		for (NodeListener listener : listeners) {
+			listener.inscribed(type);
+		}
+	}
+	
+	@Override
+	public void called(final Class<?> type) {
+		for (NodeListener listener : listeners) {
+			listener.called(type);
+		}
+	}
+	
+}
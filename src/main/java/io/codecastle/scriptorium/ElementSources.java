@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Helpers for the single-pass {@code withEach} defaults of {@link Inscribable}.
+ * 
+ * @author Doug Valenta
+ */
+final class ElementSources {
+	
+	private ElementSources() {
+	}
+	
+	/**
+	 * Holds the element most recently passed to {@link java.util.Spliterator#tryAdvance(Consumer)}.
+	 * 
+	 * @param <T> the type of the element
+	 */
+	static final class Holder<T> implements Consumer<T> {
+		
+		T value;
+		
+		@Override
+		public void accept(final T element) {
+			value = element;
+		}
+		
+	}
+	
+	/**
+	 * Closes the provided source if it is {@link AutoCloseable}.
+	 * 
+	 * <p>
+	 * If {@code thrown} is not null, it is the exception that ended iteration over the
+	 * source, and any exception thrown while closing is added to it as a suppressed
+	 * exception instead of being thrown. Otherwise, checked exceptions other than
+	 * {@link IOException} are wrapped in an {@link IOException}.
+	 * 
+	 * @param source the source to close
+	 * @param thrown the exception that ended iteration, or null
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void close(final Object source, final Throwable thrown) throws IOException {
+		if (!(source instanceof AutoCloseable)) return;
+		try {
+			((AutoCloseable) source).close();
+		} catch (Exception e) {
+			if (thrown != null) {
+				thrown.addSuppressed(e);
+			} else if (e instanceof IOException) {
+				throw (IOException) e;
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else {
+				throw new IOException(e);
+			}
+		}
+	}
+	
+}
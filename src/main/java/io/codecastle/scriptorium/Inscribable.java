@@ -7,8 +7,17 @@ package io.codecastle.scriptorium;
 import io.codecastle.scriptorium.function.IOFunction;
 import io.codecastle.scriptorium.function.IOBiConsumer;
 import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IODoubleObjConsumer;
+import io.codecastle.scriptorium.function.IOIntObjConsumer;
+import io.codecastle.scriptorium.function.IOLongObjConsumer;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Provides support for polyglot inscription services and inversion of flow control.
@@ -207,7 +216,9 @@ public interface Inscribable<I, THIS extends Inscribable<I, THIS>> {
 	 * 
 	 * <p>
 	 * The default implementation iterates over the provided elements, delegating to
-	 * {@link #with(Object, IOBiConsumer)} on each iteration.
+	 * {@link #with(Object, IOBiConsumer)} on each iteration. Lists that implement
+	 * {@link RandomAccess} are iterated by index, so no {@link java.util.Iterator} is
+	 * allocated.
 	 * 
 	 * <p>
 	 * If the provided iterable is empty or null, this method has no effect.
@@ -220,7 +231,12 @@ public interface Inscribable<I, THIS extends Inscribable<I, THIS>> {
 	 * @see #withEach(Object[], IOBiConsumer)
 	 */
 	public default <T> THIS withEach(final Iterable<? extends T> elements, final IOBiConsumer<? super T, ? super I> biConsumer) throws IOException {
-		if (elements != null) {
+		if (elements instanceof List && elements instanceof RandomAccess) {
+			final List<? extends T> list = (List<? extends T>) elements;
+			for (int index = 0; index < list.size(); index++) {
+				with(list.get(index), biConsumer);
+			}
+		} else if (elements != null) {
 			for (T element : elements) {
 				with(element, biConsumer);
 			}
@@ -228,4 +244,293 @@ public interface Inscribable<I, THIS extends Inscribable<I, THIS>> {
 		return (THIS) this;
 	}
 	
+	/**
+	 * Calls the provided {@link IOBiConsumer} once for each element remaining in the
+	 * provided {@link Iterator}, passing the element and an instance of the inscribed
+	 * type; then returns this object.
+	 * 
+	 * <p>
+	 * Elements are consumed one at a time as they are rendered, so they need not all be
+	 * held in memory. If the iterator is {@link AutoCloseable}, as many database cursors
+	 * are, it is closed when this method returns or throws.
+	 * 
+	 * <p>
+	 * The default implementation iterates over the provided elements, delegating to
+	 * {@link #with(Object, IOBiConsumer)} on each iteration.
+	 * 
+	 * <p>
+	 * If the provided iterator is empty or null, this method has no effect.
+	 * 
+	 * @param <T> the type of the elements
+	 * @param elements the elements to pass as the first argument of the provided bi-consumer
+	 * @param biConsumer the {@link IOBiConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Iterable, IOBiConsumer)
+	 * @see #withEach(Stream, IOBiConsumer)
+	 */
+	public default <T> THIS withEach(final Iterator<? extends T> elements, final IOBiConsumer<? super T, ? super I> biConsumer) throws IOException {
+		if (elements != null) {
+			Throwable thrown = null;
+			try {
+				while (elements.hasNext()) {
+					with(elements.next(), biConsumer);
+				}
+			} catch (Throwable t) {
+				thrown = t;
+				throw t;
+			} finally {
+				ElementSources.close(elements, thrown);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Calls the provided {@link IOBiConsumer} once for each element remaining in the
+	 * provided {@link Spliterator}, passing the element and an instance of the inscribed
+	 * type; then returns this object.
+	 * 
+	 * <p>
+	 * Elements are consumed one at a time as they are rendered, so they need not all be
+	 * held in memory. If the spliterator is {@link AutoCloseable}, it is closed when
+	 * this method returns or throws.
+	 * 
+	 * <p>
+	 * The default implementation advances the spliterator one element at a time, 
+	 * delegating to {@link #with(Object, IOBiConsumer)} for each element.
+	 * 
+	 * <p>
+	 * If the provided spliterator is empty or null, this method has no effect.
+	 * 
+	 * @param <T> the type of the elements
+	 * @param elements the elements to pass as the first argument of the provided bi-consumer
+	 * @param biConsumer the {@link IOBiConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Stream, IOBiConsumer)
+	 */
+	public default <T> THIS withEach(final Spliterator<? extends T> elements, final IOBiConsumer<? super T, ? super I> biConsumer) throws IOException {
+		if (elements != null) {
+			Throwable thrown = null;
+			try {
+				final ElementSources.Holder<T> holder = new ElementSources.Holder<>();
+				while (elements.tryAdvance(holder)) {
+					with(holder.value, biConsumer);
+				}
+			} catch (Throwable t) {
+				thrown = t;
+				throw t;
+			} finally {
+				ElementSources.close(elements, thrown);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Calls the provided {@link IOBiConsumer} once for each element of the provided
+	 * {@link Stream}, passing the element and an instance of the inscribed type; then
+	 * closes the stream and returns this object.
+	 * 
+	 * <p>
+	 * Elements are pulled from the stream one at a time as they are rendered, so
+	 * they need not all be held in memory. The stream is closed when this method
+	 * returns or throws, which runs its {@link Stream#onClose(Runnable) close handlers}.
+	 * 
+	 * <p>
+	 * The default implementation delegates to {@link #withEach(Spliterator, IOBiConsumer)}
+	 * with the stream's {@link Stream#spliterator() spliterator}.
+	 * 
+	 * <p>
+	 * If the provided stream is empty or null, this method has no effect.
+	 * 
+	 * @param <T> the type of the elements
+	 * @param elements the elements to pass as the first argument of the provided bi-consumer
+	 * @param biConsumer the {@link IOBiConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Iterator, IOBiConsumer)
+	 * @see #withEach(Spliterator, IOBiConsumer)
+	 */
+	public default <T> THIS withEach(final Stream<? extends T> elements, final IOBiConsumer<? super T, ? super I> biConsumer) throws IOException {
+		if (elements != null) {
+			try (Stream<? extends T> stream = elements) {
+				withEach(stream.spliterator(), biConsumer);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Calls the provided {@link IOIntObjConsumer} multiple times, passing one of the 
+	 * provided {@code int} elements and an instance of the inscribed type; then returns
+	 * this object.
+	 * 
+	 * <p>
+	 * When this method returns, the provided consumer's {@link IOIntObjConsumer#accept(int, Object)}
+	 * method will have already returned once for each element in elements.
+	 * 
+	 * <p>
+	 * The default implementation iterates over the provided elements, delegating to
+	 * {@link #with(IOConsumer)} on each iteration. Elements are not boxed; a single
+	 * consumer is reused for every element.
+	 * 
+	 * <p>
+	 * If the provided array is empty or null, this method has no effect.
+	 * 
+	 * @param elements the elements to pass as the first argument of the provided consumer
+	 * @param consumer the {@link IOIntObjConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Object[], IOBiConsumer)
+	 */
+	public default THIS withEach(final int[] elements, final IOIntObjConsumer<? super I> consumer) throws IOException {
+		if (elements != null && elements.length > 0) {
+			final PrimitiveElements.IntElement<I> element = new PrimitiveElements.IntElement<>(consumer);
+			for (int value : elements) {
+				element.value = value;
+				with(element);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Calls the provided {@link IOLongObjConsumer} multiple times, passing one of the 
+	 * provided {@code long} elements and an instance of the inscribed type; then returns
+	 * this object.
+	 * 
+	 * <p>
+	 * When this method returns, the provided consumer's {@link IOLongObjConsumer#accept(long, Object)}
+	 * method will have already returned once for each element in elements.
+	 * 
+	 * <p>
+	 * The default implementation iterates over the provided elements, delegating to
+	 * {@link #with(IOConsumer)} on each iteration. Elements are not boxed; a single
+	 * consumer is reused for every element.
+	 * 
+	 * <p>
+	 * If the provided array is empty or null, this method has no effect.
+	 * 
+	 * @param elements the elements to pass as the first argument of the provided consumer
+	 * @param consumer the {@link IOLongObjConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Object[], IOBiConsumer)
+	 */
+	public default THIS withEach(final long[] elements, final IOLongObjConsumer<? super I> consumer) throws IOException {
+		if (elements != null && elements.length > 0) {
+			final PrimitiveElements.LongElement<I> element = new PrimitiveElements.LongElement<>(consumer);
+			for (long value : elements) {
+				element.value = value;
+				with(element);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Calls the provided {@link IODoubleObjConsumer} multiple times, passing one of the 
+	 * provided {@code double} elements and an instance of the inscribed type; then returns
+	 * this object.
+	 * 
+	 * <p>
+	 * When this method returns, the provided consumer's {@link IODoubleObjConsumer#accept(double, Object)}
+	 * method will have already returned once for each element in elements.
+	 * 
+	 * <p>
+	 * The default implementation iterates over the provided elements, delegating to
+	 * {@link #with(IOConsumer)} on each iteration. Elements are not boxed; a single
+	 * consumer is reused for every element.
+	 * 
+	 * <p>
+	 * If the provided array is empty or null, this method has no effect.
+	 * 
+	 * @param elements the elements to pass as the first argument of the provided consumer
+	 * @param consumer the {@link IODoubleObjConsumer} to call with an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Object[], IOBiConsumer)
+	 */
+	public default THIS withEach(final double[] elements, final IODoubleObjConsumer<? super I> consumer) throws IOException {
+		if (elements != null && elements.length > 0) {
+			final PrimitiveElements.DoubleElement<I> element = new PrimitiveElements.DoubleElement<>(consumer);
+			for (double value : elements) {
+				element.value = value;
+				with(element);
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Renders each of the provided elements in parallel using the common
+	 * {@link ForkJoinPool}, then splices the rendered output into this object in the
+	 * original order; then returns this object.
+	 * 
+	 * <p>
+	 * The default implementation delegates to
+	 * {@link #withEachParallel(List, IOBiConsumer, IOBiConsumer, ForkJoinPool)}.
+	 * 
+	 * @param <T> the type of the elements
+	 * @param elements the elements to render
+	 * @param renderer the {@link IOBiConsumer} to call with each element and the buffer to render it into
+	 * @param splicer the {@link IOBiConsumer} to call with each element's rendered output and an instance of the inscribed type
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEachParallel(List, IOBiConsumer, IOBiConsumer, ForkJoinPool)
+	 */
+	public default <T> THIS withEachParallel(final List<? extends T> elements, final IOBiConsumer<? super T, ? super Appendable> renderer, final IOBiConsumer<? super CharSequence, ? super I> splicer) throws IOException {
+		return withEachParallel(elements, renderer, splicer, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Renders each of the provided elements in parallel using the provided
+	 * {@link ForkJoinPool}, then splices the rendered output into this object in the
+	 * original order; then returns this object.
+	 * 
+	 * <p>
+	 * The provided renderer is called from pool threads, once for each element, with
+	 * the element and an {@link Appendable} buffer to render it into. It must not use
+	 * this object. The provided splicer is then called from the calling thread, once
+	 * for each element and in the order of the list, with the element's rendered
+	 * output and an instance of the inscribed type. The output is therefore the same as
+	 * rendering each element into a buffer and splicing it with
+	 * {@link #withEach(Iterable, IOBiConsumer)}.
+	 * 
+	 * <p>
+	 * When this method returns, the provided splicer's {@link IOBiConsumer#accept(Object, Object)}
+	 * method will have already returned once for each element in elements. If the
+	 * renderer throws an exception, the output of every element before it is spliced,
+	 * no output is spliced for that element or any that follow it, and the exception
+	 * is rethrown from this method once the renderer is no longer being called.
+	 * 
+	 * <p>
+	 * The default implementation divides the list into contiguous chunks, each rendered
+	 * by a pool task into its own buffer, and delegates to {@link #with(Object, IOBiConsumer)}
+	 * for each element as soon as its chunk is done. The rendered output is passed as a
+	 * view of the buffer that is only valid until the splicer returns, so a splicer
+	 * that retains it must copy it, e.g. with {@link CharSequence#toString()}. The
+	 * list should support fast random access.
+	 * 
+	 * <p>
+	 * If the provided list is empty or null, this method has no effect.
+	 * 
+	 * @param <T> the type of the elements
+	 * @param elements the elements to render
+	 * @param renderer the {@link IOBiConsumer} to call with each element and the buffer to render it into
+	 * @param splicer the {@link IOBiConsumer} to call with each element's rendered output and an instance of the inscribed type
+	 * @param pool the pool to render the elements in
+	 * @return this object
+	 * @throws IOException if an I/O error occurs 
+	 * @see #withEach(Iterable, IOBiConsumer)
+	 */
+	public default <T> THIS withEachParallel(final List<? extends T> elements, final IOBiConsumer<? super T, ? super Appendable> renderer, final IOBiConsumer<? super CharSequence, ? super I> splicer, final ForkJoinPool pool) throws IOException {
+		if (elements != null && !elements.isEmpty()) {
+			ParallelEach.render(this, elements, renderer, splicer, pool);
+		}
+		return (THIS) this;
+	}
+	
 }
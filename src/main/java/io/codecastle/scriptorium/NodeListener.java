@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+/**
+ * Receives the events of the nodes on a {@link NodeStack}, e.g. to count, time or
+ * record them.
+ * 
+ * <p>
+ * A stack constructed with a listener calls {@link #opened(Class, int)} as each node
+ * is opened and {@link #closed(Class, int)} once it has been closed, even if its
+ * {@link AbstractInscribable#onClose()} threw; so the calls are properly nested.
+ * A stack constructed without a listener checks a single null field instead.
+ * Several listeners may be combined with {@link #of(NodeListener...)}.
+ * 
+ * <p>
+ * Listeners are called on the thread that renders the document. A listener that is
+ * shared by the stacks of several documents must be thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public interface NodeListener {
+	
+	/**
+	 * Called when a node has been opened.
+	 * 
+	 * @param type the class of the node
+	 * @param depth the number of nodes the node is opened within; zero for the root
+	 */
+	public void opened(Class<?> type, int depth);
+	
+	/**
+	 * Called when a node has been closed.
+	 * 
+	 * @param type the class of the node
+	 * @param depth the number of nodes the node was opened within
+	 */
+	public void closed(Class<?> type, int depth);
+	
+	/**
+	 * Called when a node's {@link AbstractInscribable#inscribe(io.codecastle.scriptorium.function.IOFunction) inscribe}
+	 * method is called.
+	 * 
+	 * <p>
+	 * The default implementation does nothing.
+	 * 
+	 * @param type the class of the node
+	 */
+	public default void inscribed(Class<?> type) {
+	}
+	
+	/**
+	 * Called when one of a node's {@code with} methods calls its consumer.
+	 * 
+	 * <p>
+	 * The default implementation does nothing.
+	 * 
+	 * @param type the class of the node
+	 */
+	public default void called(Class<?> type) {
+	}
+	
+	/**
+	 * Returns a listener that calls each of the provided listeners in turn, skipping
+	 * any that are null.
+	 * 
+	 * @param listeners the listeners to call
+	 * @return a listener that calls every provided listener, the only provided
+	 * listener that is not null, or null if every provided listener is null
+	 */
+	public static NodeListener of(final NodeListener... listeners) {
+		int count = 0;
+		for (NodeListener listener : listeners) {
+			if (listener != null) count++;
+		}
+		final NodeListener[] present = new NodeListener[count];
+		count = 0;
+		for (NodeListener listener : listeners) {
+			if (listener != null) present[count++] = listener;
+		}
+		if (count == 0) return null;
+		if (count == 1) return present[0];
+		return new CompositeNodeListener(present);
+	}
+	
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.sink.ChunkedCharBuffer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implements {@link Inscribable#withEachParallel(List, IOBiConsumer, IOBiConsumer, ForkJoinPool)}.
+ * 
+ * <p>
+ * The elements are divided into contiguous chunks, and each chunk is rendered by a
+ * pool task into its own {@link ChunkedCharBuffer}, recording where each element's
+ * output ends. The calling thread waits for the chunks in order and splices each
+ * element's output into the inscribable as soon as its chunk is done, so output is
+ * identical to rendering the elements one after another. Each element's output is
+ * passed to the splicer as a view of the chunk's buffer rather than a copy, and the
+ * buffer returns its chunks to the pool stripe of the task's thread.
+ * 
+ * <p>
+ * A task whose renderer throws keeps the output of the elements before the failing
+ * one, which are spliced before the exception is rethrown. Once the calling thread
+ * stops splicing, for a failure or otherwise, the remaining tasks stop rendering,
+ * and the calling thread waits for them and returns their chunks to the pool.
+ * 
+ * @author Doug Valenta
+ */
+final class ParallelEach {
+	
+	/**
+	 * The number of chunks created per thread of parallelism, so that threads that
+	 * finish early can take more work.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	private ParallelEach() {
+	}
+	
+	private static final class Chunk {
+		
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer();
+		final int[] ends;
+		
+		/**
+		 * The number of elements rendered before the chunk stopped.
+		 */
+		int count;
+		
+		/**
+		 * The exception the renderer threw, or null.
+		 */
+		Throwable failure;
+		
+		Chunk(final int size) {
+			this.ends = new int[size];
+		}
+		
+	}
+	
+	static <T, I> void render(final Inscribable<I, ?> inscribable, final List<? extends T> elements,
+			final IOBiConsumer<? super T, ? super Appendable> renderer,
+			final IOBiConsumer<? super CharSequence, ? super I> splicer, final ForkJoinPool pool) throws IOException {
+		final int size = elements.size();
+		final int chunkCount = Math.min(size, pool.getParallelism() * CHUNKS_PER_THREAD);
+		final int chunkSize = (size + chunkCount - 1) / chunkCount;
+		final int taskCount = (size + chunkSize - 1) / chunkSize;
+		final AtomicBoolean stopped = new AtomicBoolean();
+		final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[taskCount];
+		for (int task = 0; task < taskCount; task++) {
+			final int start = task * chunkSize;
+			final int end = Math.min(size, start + chunkSize);
+			tasks[task] = pool.submit(() -> renderChunk(elements, start, end, renderer, stopped));
+		}
+		int next = 0;
+		try {
+			while (next < taskCount) {
+				final Chunk chunk = await(tasks[next]);
+				next++;
+				try {
+					int start = 0;
+					for (int index = 0; index < chunk.count; index++) {
+						final int end = chunk.ends[index];
+						inscribable.with(chunk.buffer.view(start, end), splicer);
+						start = end;
+					}
+				} finally {
+					chunk.buffer.clear();
+				}
+				if (chunk.failure != null) rethrow(chunk.failure);
+			}
+		} finally {
+			if (next < taskCount) {
+				stopped.set(true);
+				for (; next < taskCount; next++) {
+					tasks[next].quietlyJoin();
+					if (tasks[next].isCompletedNormally()) ((Chunk) tasks[next].getRawResult()).buffer.clear();
+				}
+			}
+		}
+	}
+	
+	private static <T> Chunk renderChunk(final List<? extends T> elements, final int start, final int end,
+			final IOBiConsumer<? super T, ? super Appendable> renderer, final AtomicBoolean stopped) {
+		final Chunk chunk = new Chunk(end - start);
+		try {
+			for (int index = start; index < end && !stopped.get(); index++) {
+				renderer.accept(elements.get(index), chunk.buffer);
+				chunk.ends[index - start] = chunk.buffer.length();
+				chunk.count++;
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			chunk.failure = e;
+		}
+		return chunk;
+	}
+	
+	private static Chunk await(final ForkJoinTask<?> task) throws IOException {
+		try {
+			return (Chunk) task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			rethrow(e.getCause());
+			throw new AssertionError();
+		}
+	}
+	
+	private static void rethrow(final Throwable failure) throws IOException {
+		if (failure instanceof IOException) throw (IOException) failure;
+		if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+		if (failure instanceof Error) throw (Error) failure;
+		throw new IOException(failure);
+	}
+	
+}
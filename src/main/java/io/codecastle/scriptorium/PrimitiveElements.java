@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IODoubleObjConsumer;
+import io.codecastle.scriptorium.function.IOIntObjConsumer;
+import io.codecastle.scriptorium.function.IOLongObjConsumer;
+import java.io.IOException;
+
+/**
+ * Reusable {@link IOConsumer} adapters that pass a primitive element to a primitive
+ * specialized consumer, used by the primitive {@code withEach} defaults of
+ * {@link Inscribable} so that elements are never boxed.
+ * 
+ * @author Doug Valenta
+ */
+final class PrimitiveElements {
+	
+	private PrimitiveElements() {
+	}
+	
+	static final class IntElement<I> implements IOConsumer<I> {
+		
+		private final IOIntObjConsumer<? super I> consumer;
+		int value;
+		
+		IntElement(final IOIntObjConsumer<? super I> consumer) {
+			this.consumer = consumer;
+		}
+		
+		@Override
+		public void accept(final I inscribed) throws IOException {
+			consumer.accept(value, inscribed);
+		}
+		
+	}
+	
+	static final class LongElement<I> implements IOConsumer<I> {
+		
+		private final IOLongObjConsumer<? super I> consumer;
+		long value;
+		
+		LongElement(final IOLongObjConsumer<? super I> consumer) {
+			this.consumer = consumer;
+		}
+		
+		@Override
+		public void accept(final I inscribed) throws IOException {
+			consumer.accept(value, inscribed);
+		}
+		
+	}
+	
+	static final class DoubleElement<I> implements IOConsumer<I> {
+		
+		private final IODoubleObjConsumer<? super I> consumer;
+		double value;
+		
+		DoubleElement(final IODoubleObjConsumer<? super I> consumer) {
+			this.consumer = consumer;
+		}
+		
+		@Override
+		public void accept(final I inscribed) throws IOException {
+			consumer.accept(value, inscribed);
+		}
+		
+	}
+	
+}
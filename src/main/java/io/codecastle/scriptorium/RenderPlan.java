@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IOFunction;
+import java.io.IOException;
+
+/**
+ * A reusable description of a document, built once by a {@link RenderPlanBuilder}
+ * and rendered any number of times against a data object.
+ * 
+ * <p>
+ * A plan's steps are flattened into arrays when it is built, including the steps of
+ * nested plans, and are run by a single loop that calls the target's methods with
+ * the consumers and data accessors the plan was built from. Rendering a plan
+ * therefore captures no lambdas and allocates nothing itself; the data object is
+ * passed to consumers as an argument instead.
+ * 
+ * <p>
+ * Instances of this class are immutable, and may be rendered by several threads at
+ * once if their consumers and accessors allow it.
+ * 
+ * @author Doug Valenta
+ * @param <D> the data type
+ * @param <I> the inscribed type of the target
+ * @param <T> the target type
+ */
+public final class RenderPlan<D, I, T extends Inscribable<I, T>> {
+	
+	static final int WITH = 0;
+	static final int WITH_DATA = 1;
+	static final int WITH_VALUE = 2;
+	static final int WITH_IF_NOT_NULL = 3;
+	static final int WITH_EACH = 4;
+	static final int INSCRIBE = 5;
+	
+	final int[] codes;
+	final Object[] functions;
+	final Object[] consumers;
+	
+	/**
+	 * For {@link #INSCRIBE} steps, the index after the last step of the nested plan.
+	 */
+	final int[] ends;
+	
+	RenderPlan(final int[] codes, final Object[] functions, final Object[] consumers, final int[] ends) {
+		this.codes = codes;
+		this.functions = functions;
+		this.consumers = consumers;
+		this.ends = ends;
+	}
+	
+	/**
+	 * Returns the number of steps in this plan, including the steps of nested plans.
+	 * 
+	 * @return the number of steps in this plan
+	 */
+	public int size() {
+		return codes.length;
+	}
+	
+	/**
+	 * Runs the steps of this plan against the provided target, with the provided data
+	 * object, and returns the target.
+	 * 
+	 * @param data the data object to pass to accessors and consumers
+	 * @param target the object to render into
+	 * @return the provided target
+	 * @throws IOException if an I/O error occurs
+	 */
+	public T render(final D data, final T target) throws IOException {
+		run(data, RenderPlan.<Inscribable<Object, ?>>cast(target), 0, codes.length);
+		return target;
+	}
+	
+	private void run(final Object data, final Inscribable<Object, ?> target, final int start, final int end) throws IOException {
+		int step = start;
+		while (step < end) {
+			switch (codes[step]) {
+				case WITH:
+					target.with(RenderPlan.<IOConsumer<Object>>step(consumers, step));
+					step++;
+					break;
+				case WITH_DATA:
+					target.with(data, RenderPlan.<IOBiConsumer<Object, Object>>step(consumers, step));
+					step++;
+					break;
+				case WITH_VALUE:
+					target.with(apply(step, data), RenderPlan.<IOBiConsumer<Object, Object>>step(consumers, step));
+					step++;
+					break;
+				case WITH_IF_NOT_NULL:
+					target.withIfNotNull(apply(step, data), RenderPlan.<IOBiConsumer<Object, Object>>step(consumers, step));
+					step++;
+					break;
+				case WITH_EACH:
+					target.withEach(this.<Iterable<Object>>apply(step, data), RenderPlan.<IOBiConsumer<Object, Object>>step(consumers, step));
+					step++;
+					break;
+				case INSCRIBE:
+					try (FluentNode<?> child = target.inscribe(step(functions, step))) {
+						run(data, RenderPlan.<Inscribable<Object, ?>>cast(child), step + 1, ends[step]);
+					}
+					step = ends[step];
+					break;
+				default:
+					throw new IllegalStateException("Unknown step " + codes[step]);
+			}
+		}
+	}
+	
+	private <V> V apply(final int step, final Object data) throws IOException {
+		return cast(RenderPlan.<IOFunction<Object, ?>>step(functions, step).apply(data));
+	}
+	
+	private static <V> V step(final Object[] steps, final int step) {
+		return cast(steps[step]);
+	}
+	
+	/**
+	 * Casts a step's function, consumer or node to the type the step was built with,
+	 * which {@link RenderPlanBuilder} checked when the step was added.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <V> V cast(final Object value) {
+		return (V) value;
+	}
+	
+}
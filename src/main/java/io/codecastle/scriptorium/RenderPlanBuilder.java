@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IOFunction;
+import java.util.Arrays;
+
+/**
+ * Builds {@link RenderPlan} instances from steps that mirror the methods of
+ * {@link Inscribable}, with values taken from the data object by accessors.
+ * 
+ * <p>
+ * Each method validates its arguments and appends a step; {@link #build()} copies the
+ * steps into a new plan, so a builder may go on to build further plans.
+ * 
+ * @author Doug Valenta
+ * @param <D> the data type
+ * @param <I> the inscribed type of the target
+ * @param <T> the target type
+ */
+public class RenderPlanBuilder<D, I, T extends Inscribable<I, T>> {
+	
+	private static final int INITIAL_CAPACITY = 8;
+	
+	private int[] codes = new int[INITIAL_CAPACITY];
+	private Object[] functions = new Object[INITIAL_CAPACITY];
+	private Object[] consumers = new Object[INITIAL_CAPACITY];
+	private int[] ends = new int[INITIAL_CAPACITY];
+	private int size;
+	
+	private int add(final int code, final Object function, final Object consumer) {
+		if (size == codes.length) {
+			codes = Arrays.copyOf(codes, size * 2);
+			functions = Arrays.copyOf(functions, size * 2);
+			consumers = Arrays.copyOf(consumers, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+		}
+		codes[size] = code;
+		functions[size] = function;
+		consumers[size] = consumer;
+		return size++;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#with(IOConsumer)} with the provided
+	 * consumer, and returns this builder.
+	 * 
+	 * @param consumer the consumer to call with an instance of the inscribed type
+	 * @return this builder
+	 */
+	public RenderPlanBuilder<D, I, T> with(final IOConsumer<? super I> consumer) {
+		if (consumer == null) throw new NullPointerException("consumer");
+		add(RenderPlan.WITH, null, consumer);
+		return this;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#with(Object, IOBiConsumer)} with the
+	 * data object and the provided bi-consumer, and returns this builder.
+	 * 
+	 * @param biConsumer the bi-consumer to call with the data object and an instance of
+	 * the inscribed type
+	 * @return this builder
+	 */
+	public RenderPlanBuilder<D, I, T> withData(final IOBiConsumer<? super D, ? super I> biConsumer) {
+		if (biConsumer == null) throw new NullPointerException("biConsumer");
+		add(RenderPlan.WITH_DATA, null, biConsumer);
+		return this;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#with(Object, IOBiConsumer)} with the
+	 * value the provided accessor returns for the data object, and returns this builder.
+	 * 
+	 * @param <V> the type of the value
+	 * @param accessor the function that returns the value for a data object
+	 * @param biConsumer the bi-consumer to call with the value and an instance of the
+	 * inscribed type
+	 * @return this builder
+	 */
+	public <V> RenderPlanBuilder<D, I, T> with(final IOFunction<? super D, ? extends V> accessor, final IOBiConsumer<? super V, ? super I> biConsumer) {
+		if (accessor == null) throw new NullPointerException("accessor");
+		if (biConsumer == null) throw new NullPointerException("biConsumer");
+		add(RenderPlan.WITH_VALUE, accessor, biConsumer);
+		return this;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#withIfNotNull(Object, IOBiConsumer)}
+	 * with the value the provided accessor returns for the data object, and returns
+	 * this builder.
+	 * 
+	 * @param <V> the type of the value
+	 * @param accessor the function that returns the value for a data object
+	 * @param biConsumer the bi-consumer to call with the value, if it is not null, and an
+	 * instance of the inscribed type
+	 * @return this builder
+	 */
+	public <V> RenderPlanBuilder<D, I, T> withIfNotNull(final IOFunction<? super D, ? extends V> accessor, final IOBiConsumer<? super V, ? super I> biConsumer) {
+		if (accessor == null) throw new NullPointerException("accessor");
+		if (biConsumer == null) throw new NullPointerException("biConsumer");
+		add(RenderPlan.WITH_IF_NOT_NULL, accessor, biConsumer);
+		return this;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#withEach(Iterable, IOBiConsumer)} with
+	 * the elements the provided accessor returns for the data object, and returns this
+	 * builder.
+	 * 
+	 * @param <V> the type of the elements
+	 * @param accessor the function that returns the elements for a data object
+	 * @param biConsumer the bi-consumer to call with each element and an instance of the
+	 * inscribed type
+	 * @return this builder
+	 */
+	public <V> RenderPlanBuilder<D, I, T> withEach(final IOFunction<? super D, ? extends Iterable<? extends V>> accessor, final IOBiConsumer<? super V, ? super I> biConsumer) {
+		if (accessor == null) throw new NullPointerException("accessor");
+		if (biConsumer == null) throw new NullPointerException("biConsumer");
+		add(RenderPlan.WITH_EACH, accessor, biConsumer);
+		return this;
+	}
+	
+	/**
+	 * Adds a step that calls {@link Inscribable#inscribe(IOFunction)} with the provided
+	 * function, renders the provided plan into the returned node, and closes the node;
+	 * then returns this builder.
+	 * 
+	 * <p>
+	 * The steps of the provided plan are copied into this builder.
+	 * 
+	 * @param <J> the inscribed type of the node
+	 * @param <N> the node type
+	 * @param function the function that inscribes the node
+	 * @param plan the plan to render into the node
+	 * @return this builder
+	 */
+	public <J, N extends FluentNode<T> & Inscribable<J, N>> RenderPlanBuilder<D, I, T> inscribe(final IOFunction<? super T, N> function, final RenderPlan<? super D, J, N> plan) {
+		if (function == null) throw new NullPointerException("function");
+		if (plan == null) throw new NullPointerException("plan");
+		final int step = add(RenderPlan.INSCRIBE, function, null);
+		final int offset = size;
+		for (int index = 0; index < plan.codes.length; index++) {
+			add(plan.codes[index], plan.functions[index], plan.consumers[index]);
+			ends[offset + index] = plan.ends[index] + offset;
+		}
+		ends[step] = size;
+		return this;
+	}
+	
+	/**
+	 * Returns a new plan with the steps added to this builder.
+	 * 
+	 * @return a new plan
+	 */
+	public RenderPlan<D, I, T> build() {
+		return new RenderPlan<>(Arrays.copyOf(codes, size), Arrays.copyOf(functions, size), Arrays.copyOf(consumers, size),
+				Arrays.copyOf(ends, size));
+	}
+	
+}
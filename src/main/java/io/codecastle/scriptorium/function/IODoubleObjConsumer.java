@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.function;
+
+import java.io.IOException;
+
+/**
+ * Represents an operation that accepts a {@code double}-valued argument and an
+ * object-valued argument and returns no result, possibly throwing an
+ * {@link java.io.IOException}.
+ * 
+ * This is the {@code double}-consuming primitive specialization of {@link IOBiConsumer}.
+ * 
+ * <p>
+ * This is a functional interface whose functional method is {@link #accept(double, Object)}.
+ * 
+ * @author Doug Valenta
+ * @param <T> the type of the object argument to the operation
+ * @see IOBiConsumer
+ * @see java.util.function.ObjDoubleConsumer
+ */
+@FunctionalInterface
+public interface IODoubleObjConsumer<T> {
+	
+	/**
+	 * Performs the operation on the given arguments.
+	 * 
+	 * @param value the {@code double} input argument
+	 * @param t the object input argument
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void accept(double value, T t) throws IOException;
+	
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.function;
+
+import java.io.IOException;
+
+/**
+ * Represents an operation that accepts a {@code long}-valued argument and an
+ * object-valued argument and returns no result, possibly throwing an
+ * {@link java.io.IOException}.
+ * 
+ * This is the {@code long}-consuming primitive specialization of {@link IOBiConsumer}.
+ * 
+ * <p>
+ * This is a functional interface whose functional method is {@link #accept(long, Object)}.
+ * 
+ * @author Doug Valenta
+ * @param <T> the type of the object argument to the operation
+ * @see IOBiConsumer
+ * @see java.util.function.ObjLongConsumer
+ */
+@FunctionalInterface
+public interface IOLongObjConsumer<T> {
+	
+	/**
+	 * Performs the operation on the given arguments.
+	 * 
+	 * @param value the {@code long} input argument
+	 * @param t the object input argument
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void accept(long value, T t) throws IOException;
+	
+}
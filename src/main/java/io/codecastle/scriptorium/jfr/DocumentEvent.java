@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The rendering of a document, from opening its root node to closing it.
+ * 
+ * @author Doug Valenta
+ */
+@Name(FlightEvents.NAME_PREFIX + "Document")
+@Label("Document")
+@Description("The rendering of a document, from opening its root node to closing it.")
+@Category(FlightEvents.CATEGORY)
+@Threshold("10 ms")
+@StackTrace(true)
+final class DocumentEvent extends Event {
+	
+	@Label("Root Class")
+	@Description("The class of the document's root node")
+	Class<?> rootClass;
+	
+}
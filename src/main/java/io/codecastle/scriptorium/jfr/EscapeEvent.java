@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The escaping of a run of at least {@value FlightEvents#LARGE_RUN} characters.
+ * 
+ * @author Doug Valenta
+ */
+@Name(FlightEvents.NAME_PREFIX + "Escape")
+@Label("Escape")
+@Description("The escaping of a long run of characters.")
+@Category(FlightEvents.CATEGORY)
+@Threshold("1 ms")
+@StackTrace(false)
+final class EscapeEvent extends Event {
+	
+	@Label("Escaper Class")
+	@Description("The class of the escaper")
+	Class<?> escaperClass;
+	
+	@Label("Length")
+	@Description("The number of characters escaped")
+	int length;
+	
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+/**
+ * Begins and ends the Java Flight Recorder events of this library, which are named
+ * with {@link #NAME_PREFIX} and grouped under {@link #CATEGORY}.
+ * 
+ * <p>
+ * The events are {@code Document}, for each document from opening its root node to
+ * closing it; {@code Node}, for each other node of an
+ * {@link io.codecastle.scriptorium.AbstractInscribable} document, both recorded by a
+ * {@link NodeEvents} listener on the document's stack; {@code Flush}, for each flush
+ * of a UTF-8 sink; and {@code Escape}, for each run of at least {@value #LARGE_RUN}
+ * characters escaped by one call. Each event type has a default
+ * threshold, which recording settings may override; events shorter than their
+ * threshold are dropped when they end.
+ * 
+ * <p>
+ * On runtimes without the {@code jdk.jfr} API, {@link #isAvailable()} returns false,
+ * and every method of this class does nothing and returns null. Otherwise, while
+ * no recording has enabled an event type, beginning an event of that type returns
+ * null without allocating.
+ * 
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class FlightEvents {
+	
+	/**
+	 * The prefix of the name of each event type.
+	 */
+	public static final String NAME_PREFIX = "io.codecastle.scriptorium.";
+	
+	/**
+	 * The category of each event type.
+	 */
+	public static final String CATEGORY = "Scriptorium";
+	
+	/**
+	 * The length of the shortest run of characters for which an {@code Escape} event
+	 * is begun.
+	 */
+	public static final int LARGE_RUN = 4096;
+	
+	private static final Recorder RECORDER = recorder();
+	
+	private FlightEvents() {
+	}
+	
+	private static Recorder recorder() {
+		try {
+			Class.forName("jdk.jfr.Event", false, FlightEvents.class.getClassLoader());
+			return (Recorder) Class.forName(FlightEvents.class.getPackage().getName() + ".JfrRecorder").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns whether the {@code jdk.jfr} API is present, so events can be recorded.
+	 * 
+	 * @return true if events can be recorded
+	 */
+	public static boolean isAvailable() {
+		return RECORDER != null;
+	}
+	
+	/**
+	 * Begins a {@code Document} event for the document with a root node of the
+	 * provided class.
+	 * 
+	 * @param root the class of the root node
+	 * @return the event to pass to {@link #end(Object)}, or null
+	 */
+	public static Object beginDocument(final Class<?> root) {
+		return RECORDER == null ? null : RECORDER.beginDocument(root);
+	}
+	
+	/**
+	 * Begins a {@code Node} event for a node of the provided class.
+	 * 
+	 * @param node the class of the node
+	 * @param depth the number of nodes the node is opened within
+	 * @return the event to pass to {@link #end(Object)}, or null
+	 */
+	public static Object beginNode(final Class<?> node, final int depth) {
+		return RECORDER == null ? null : RECORDER.beginNode(node, depth);
+	}
+	
+	/**
+	 * Begins a {@code Flush} event for a sink of the provided class.
+	 * 
+	 * @param sink the class of the sink
+	 * @param bytes the number of bytes being flushed
+	 * @return the event to pass to {@link #end(Object)}, or null
+	 */
+	public static Object beginFlush(final Class<?> sink, final int bytes) {
+		return RECORDER == null ? null : RECORDER.beginFlush(sink, bytes);
+	}
+	
+	/**
+	 * Begins an {@code Escape} event for an escaper of the provided class, if the run
+	 * is at least {@value #LARGE_RUN} characters long.
+	 * 
+	 * @param escaper the class of the escaper
+	 * @param length the number of characters in the run
+	 * @return the event to pass to {@link #end(Object)}, or null
+	 */
+	public static Object beginEscape(final Class<?> escaper, final int length) {
+		return RECORDER == null || length < LARGE_RUN ? null : RECORDER.beginEscape(escaper, length);
+	}
+	
+	/**
+	 * Ends the provided event, and commits it if it lasted at least its threshold.
+	 * 
+	 * @param event an event returned by one of the {@code begin} methods, or null
+	 */
+	public static void end(final Object event) {
+		if (event != null) RECORDER.end(event);
+	}
+	
+}
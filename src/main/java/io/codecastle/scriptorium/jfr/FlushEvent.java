@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A flush of the bytes a sink has encoded to its destination.
+ * 
+ * @author Doug Valenta
+ */
+@Name(FlightEvents.NAME_PREFIX + "Flush")
+@Label("Sink Flush")
+@Description("A flush of the bytes a sink has encoded to its destination.")
+@Category(FlightEvents.CATEGORY)
+@Threshold("1 ms")
+@StackTrace(true)
+final class FlushEvent extends Event {
+	
+	@Label("Sink Class")
+	@Description("The class of the sink")
+	Class<?> sinkClass;
+	
+	@Label("Bytes")
+	@Description("The number of bytes flushed")
+	@DataAmount
+	int bytes;
+	
+}
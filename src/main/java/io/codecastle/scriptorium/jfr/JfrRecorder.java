@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+
+/**
+ * Records events with the {@code jdk.jfr} API. This class is only loaded once that
+ * API is known to be present.
+ * 
+ * <p>
+ * An event is only allocated when its type is enabled in a running recording; the
+ * event's threshold is then applied when it ends.
+ * 
+ * @author Doug Valenta
+ */
+final class JfrRecorder implements Recorder {
+	
+	private final EventType document = EventType.getEventType(DocumentEvent.class);
+	private final EventType node = EventType.getEventType(NodeEvent.class);
+	private final EventType flush = EventType.getEventType(FlushEvent.class);
+	private final EventType escape = EventType.getEventType(EscapeEvent.class);
+	
+	@Override
+	public Object beginDocument(final Class<?> root) {
+		if (!document.isEnabled()) return null;
+		final DocumentEvent event = new DocumentEvent();
+		event.rootClass = root;
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	public Object beginNode(final Class<?> nodeClass, final int depth) {
+		if (!node.isEnabled()) return null;
+		final NodeEvent event = new NodeEvent();
+		event.nodeClass = nodeClass;
+		event.depth = depth;
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	public Object beginFlush(final Class<?> sink, final int bytes) {
+		if (!flush.isEnabled()) return null;
+		final FlushEvent event = new FlushEvent();
+		event.sinkClass = sink;
+		event.bytes = bytes;
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	public Object beginEscape(final Class<?> escaper, final int length) {
+		if (!escape.isEnabled()) return null;
+		final EscapeEvent event = new EscapeEvent();
+		event.escaperClass = escaper;
+		event.length = length;
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	public void end(final Object event) {
+		final Event jfrEvent = (Event) event;
+		jfrEvent.end();
+		if (jfrEvent.shouldCommit()) jfrEvent.commit();
+	}
+	
+}
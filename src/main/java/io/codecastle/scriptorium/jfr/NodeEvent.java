@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The time a node was open, including the nodes within it.
+ * 
+ * @author Doug Valenta
+ */
+@Name(FlightEvents.NAME_PREFIX + "Node")
+@Label("Node")
+@Description("The time a node was open, including the nodes within it.")
+@Category(FlightEvents.CATEGORY)
+@Threshold("1 ms")
+@StackTrace(false)
+final class NodeEvent extends Event {
+	
+	@Label("Node Class")
+	@Description("The class of the node")
+	Class<?> nodeClass;
+	
+	@Label("Depth")
+	@Description("The number of nodes the node was opened within")
+	int depth;
+	
+}
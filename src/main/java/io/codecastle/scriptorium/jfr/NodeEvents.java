@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+import io.codecastle.scriptorium.NodeListener;
+import java.util.Arrays;
+
+/**
+ * A {@link NodeListener} that begins a {@code Document} event when the root node of
+ * a document is opened and a {@code Node} event when any other node is opened, and
+ * ends it once the node has been closed; see {@link FlightEvents}.
+ * 
+ * <p>
+ * Each document's {@link io.codecastle.scriptorium.NodeStack} needs its own
+ * instance, which holds the events of the open nodes. On runtimes without the
+ * {@code jdk.jfr} API, or while no recording has enabled the event types, the
+ * listener records nothing and allocates nothing.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class NodeEvents implements NodeListener {
+	
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private Object[] events = new Object[INITIAL_CAPACITY];
+	
+	@Override
+	public void opened(final Class<?> type, final int depth) {
+		if (depth >= events.length) events = Arrays.copyOf(events, Math.max(depth + 1, events.length * 2));
+		events[depth] = depth == 0 ? FlightEvents.beginDocument(type) : FlightEvents.beginNode(type, depth);
+	}
+	
+	@Override
+	public void closed(final Class<?> type, final int depth) {
+		final Object event = events[depth];
+		if (event != null) {
+			events[depth] = null;
+			FlightEvents.end(event);
+		}
+	}
+	
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.jfr;
+
+/**
+ * Begins and ends events, without exposing any {@code jdk.jfr} type, so that
+ * {@link FlightEvents} loads on runtimes without it.
+ * 
+ * @author Doug Valenta
+ */
+interface Recorder {
+	
+	Object beginDocument(Class<?> root);
+	
+	Object beginNode(Class<?> node, int depth);
+	
+	Object beginFlush(Class<?> sink, int bytes);
+	
+	Object beginEscape(Class<?> escaper, int length);
+	
+	void end(Object event);
+	
+}
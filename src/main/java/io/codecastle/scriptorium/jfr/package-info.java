@@ -0,0 +1,10 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+
+/**
+ * Java Flight Recorder events for documents, nodes, sink flushes and long escaped
+ * runs, which are recorded only on runtimes that include the {@code jdk.jfr} API.
+ */
+package io.codecastle.scriptorium.jfr;
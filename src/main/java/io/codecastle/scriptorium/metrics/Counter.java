@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+/**
+ * A sum that many threads may add to at once.
+ * 
+ * <p>
+ * Implementations must be thread-safe, and should accumulate without contention,
+ * e.g. with a {@link java.util.concurrent.atomic.LongAdder}.
+ * 
+ * @author Doug Valenta
+ */
+public interface Counter {
+	
+	/**
+	 * Adds the provided amount to this counter.
+	 * 
+	 * @param amount the amount to add
+	 */
+	public void add(long amount);
+	
+	/**
+	 * Adds one to this counter.
+	 * 
+	 * <p>
+	 * The default implementation delegates to {@link #add(long)}.
+	 */
+	public default void increment() {
+		add(1);
+	}
+	
+	/**
+	 * Returns the current sum of this counter.
+	 * 
+	 * @return the sum of the amounts added
+	 */
+	public long sum();
+	
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricRegistry} that keeps its counters in memory, e.g. for tests or to
+ * log a summary of a render.
+ * 
+ * <p>
+ * Instances of this class are thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class InMemoryMetricRegistry implements MetricRegistry {
+	
+	private static final class AdderCounter implements Counter {
+		
+		private final LongAdder adder = new LongAdder();
+		
+		@Override
+		public void add(final long amount) {
+			adder.add(amount);
+		}
+		
+		@Override
+		public void increment() {
+			adder.increment();
+		}
+		
+		@Override
+		public long sum() {
+			return adder.sum();
+		}
+		
+	}
+	
+	private final ConcurrentMap<String, AdderCounter> counters = new ConcurrentHashMap<>();
+	
+	@Override
+	public Counter counter(final String name) {
+		if (name == null) throw new NullPointerException("name");
+		return counters.computeIfAbsent(name, key -> new AdderCounter());
+	}
+	
+	/**
+	 * Returns the sum of the counter with the provided name, or zero if there is no
+	 * such counter.
+	 * 
+	 * @param name the name of the counter
+	 * @return the sum of the counter
+	 */
+	public long sum(final String name) {
+		final Counter counter = counters.get(name);
+		return counter == null ? 0 : counter.sum();
+	}
+	
+	/**
+	 * Returns the sum of every counter, by name.
+	 * 
+	 * @return a new map of counter names, in order, to their sums
+	 */
+	public SortedMap<String, Long> snapshot() {
+		final SortedMap<String, Long> snapshot = new TreeMap<>();
+		for (Map.Entry<String, AdderCounter> entry : counters.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().sum());
+		}
+		return snapshot;
+	}
+	
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Counts the calls and characters appended to an {@link Appendable}, and the time
+ * spent in it, e.g. in a sink that blocks on I/O.
+ * 
+ * <p>
+ * The counters are named with the provided prefix followed by {@link #APPENDS},
+ * {@link #CHARACTERS} and {@link #NANOS}; the average append is the characters
+ * divided by the appends. Calls to {@link #flush()} and {@link #close()} are passed
+ * to the delegate if it is {@link Flushable} or {@link Closeable}, and their time
+ * is included. Timing each call costs two calls to {@link System#nanoTime()}.
+ * 
+ * <p>
+ * Instances of this class are as thread-safe as their delegate.
+ * 
+ * @author Doug Valenta
+ */
+public final class InstrumentedAppendable implements FluentAppendable<InstrumentedAppendable>, Flushable, Closeable {
+	
+	/**
+	 * The suffix of the counter of calls to {@code append} methods.
+	 */
+	public static final String APPENDS = ".appends";
+	
+	/**
+	 * The suffix of the counter of characters appended.
+	 */
+	public static final String CHARACTERS = ".chars";
+	
+	/**
+	 * The suffix of the counter of nanoseconds spent in the delegate.
+	 */
+	public static final String NANOS = ".nanos";
+	
+	private final Appendable delegate;
+	private final Counter appends;
+	private final Counter characters;
+	private final Counter nanos;
+	
+	/**
+	 * Constructs a new appendable that appends to the provided delegate, and records
+	 * its metrics in counters from the provided registry.
+	 * 
+	 * @param delegate the appendable to append to
+	 * @param registry the registry of the counters
+	 * @param prefix the prefix of the counters' names
+	 */
+	public InstrumentedAppendable(final Appendable delegate, final MetricRegistry registry, final String prefix) {
+		if (delegate == null) throw new NullPointerException("delegate");
+		this.delegate = delegate;
+		this.appends = registry.counter(prefix + APPENDS);
+		this.characters = registry.counter(prefix + CHARACTERS);
+		this.nanos = registry.counter(prefix + NANOS);
+	}
+	
+	@Override
+	public InstrumentedAppendable append(final char character) throws IOException {
+		final long start = System.nanoTime();
+		try {
+			delegate.append(character);
+		} finally {
+			nanos.add(System.nanoTime() - start);
+		}
+		appends.increment();
+		characters.increment();
+		return this;
+	}
+	
+	@Override
+	public InstrumentedAppendable append(final CharSequence sequence) throws IOException {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		return append(nonNull, 0, nonNull.length());
+	}
+	
+	@Override
+	public InstrumentedAppendable append(final CharSequence sequence, final int start, final int end) throws IOException {
+		final long started = System.nanoTime();
+		try {
+			delegate.append(sequence, start, end);
+		} finally {
+			nanos.add(System.nanoTime() - started);
+		}
+		appends.increment();
+		characters.add(end - start);
+		return this;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if (delegate instanceof Flushable) {
+			final long start = System.nanoTime();
+			try {
+				((Flushable) delegate).flush();
+			} finally {
+				nanos.add(System.nanoTime() - start);
+			}
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (delegate instanceof Closeable) {
+			final long start = System.nanoTime();
+			try {
+				((Closeable) delegate).close();
+			} finally {
+				nanos.add(System.nanoTime() - start);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Counts the writes and bytes written to a {@link WritableByteChannel}, and the time
+ * spent blocked writing, e.g. beneath a {@link io.codecastle.scriptorium.sink.Utf8Sink}.
+ * 
+ * <p>
+ * The counters are named with the provided prefix followed by {@link #WRITES},
+ * {@link #BYTES} and {@link #NANOS}.
+ * 
+ * <p>
+ * Instances of this class are as thread-safe as their delegate.
+ * 
+ * @author Doug Valenta
+ */
+public final class InstrumentedChannel implements WritableByteChannel {
+	
+	/**
+	 * The suffix of the counter of calls to {@link #write(ByteBuffer)}.
+	 */
+	public static final String WRITES = ".writes";
+	
+	/**
+	 * The suffix of the counter of bytes written.
+	 */
+	public static final String BYTES = ".bytes";
+	
+	/**
+	 * The suffix of the counter of nanoseconds spent in the delegate.
+	 */
+	public static final String NANOS = ".nanos";
+	
+	private final WritableByteChannel delegate;
+	private final Counter writes;
+	private final Counter bytes;
+	private final Counter nanos;
+	
+	/**
+	 * Constructs a new channel that writes to the provided delegate, and records its
+	 * metrics in counters from the provided registry.
+	 * 
+	 * @param delegate the channel to write to
+	 * @param registry the registry of the counters
+	 * @param prefix the prefix of the counters' names
+	 */
+	public InstrumentedChannel(final WritableByteChannel delegate, final MetricRegistry registry, final String prefix) {
+		if (delegate == null) throw new NullPointerException("delegate");
+		this.delegate = delegate;
+		this.writes = registry.counter(prefix + WRITES);
+		this.bytes = registry.counter(prefix + BYTES);
+		this.nanos = registry.counter(prefix + NANOS);
+	}
+	
+	@Override
+	public int write(final ByteBuffer source) throws IOException {
+		final long start = System.nanoTime();
+		final int written;
+		try {
+			written = delegate.write(source);
+		} finally {
+			nanos.add(System.nanoTime() - start);
+		}
+		writes.increment();
+		bytes.add(written);
+		return written;
+	}
+	
+	@Override
+	public boolean isOpen() {
+		return delegate.isOpen();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		final long start = System.nanoTime();
+		try {
+			delegate.close();
+		} finally {
+			nanos.add(System.nanoTime() - start);
+		}
+	}
+	
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+/**
+ * Provides named {@link Counter counters}, so that the metrics recorded by this
+ * library can be reported through any metrics system.
+ * 
+ * <p>
+ * Counters are looked up when a decorator or document is created, not on each
+ * call, so lookups need not be fast. Implementations must be thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+@FunctionalInterface
+public interface MetricRegistry {
+	
+	/**
+	 * Returns the counter with the provided name, creating it if necessary. Every
+	 * call with the same name returns a counter with the same sum.
+	 * 
+	 * @param name the name of the counter
+	 * @return the counter with the provided name
+	 */
+	public Counter counter(String name);
+	
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import io.codecastle.scriptorium.NodeListener;
+
+/**
+ * A {@link NodeListener} that counts the calls to
+ * {@link io.codecastle.scriptorium.AbstractInscribable#inscribe(io.codecastle.scriptorium.function.IOFunction) inscribe}
+ * and to the {@code with} methods of nodes, per node class, in counters named with
+ * the class name followed by {@link #INSCRIBES} or {@link #WITHS}.
+ * 
+ * <p>
+ * The counters for each class are looked up in the registry once, when a node of
+ * that class is first counted, and are kept with a {@link ClassValue}, which does
+ * not prevent the class from being unloaded.
+ * 
+ * <p>
+ * Instances of this class are thread-safe, so one instance may be shared by the
+ * stacks of every document.
+ * 
+ * @author Doug Valenta
+ */
+public final class NodeCounters implements NodeListener {
+	
+	/**
+	 * The suffix of the counters of calls to {@code inscribe}.
+	 */
+	public static final String INSCRIBES = ".inscribes";
+	
+	/**
+	 * The suffix of the counters of calls to {@code with} methods.
+	 */
+	public static final String WITHS = ".withs";
+	
+	private static final int INSCRIBE_COUNTER = 0;
+	private static final int WITH_COUNTER = 1;
+	
+	private final MetricRegistry registry;
+	private final ClassValue<Counter[]> counters = new ClassValue<Counter[]>() {
+		
+		@Override
+		protected Counter[] computeValue(final Class<?> type) {
+			return new Counter[] {
+				registry.counter(type.getName() + INSCRIBES),
+				registry.counter(type.getName() + WITHS)
+			};
+		}
+		
+	};
+	
+	/**
+	 * Constructs a new listener that counts calls in counters from the provided
+	 * registry.
+	 * 
+	 * @param registry the registry of the counters
+	 */
+	public NodeCounters(final MetricRegistry registry) {
+		if (registry == null) throw new NullPointerException("registry");
+		this.registry = registry;
+	}
+	
+	@Override
+	public void opened(final Class<?> type, final int depth) {
+	}
+	
+	@Override
+	public void closed(final Class<?> type, final int depth) {
+	}
+	
+	@Override
+	public void inscribed(final Class<?> type) {
+		counters.get(type)[INSCRIBE_COUNTER].increment();
+	}
+	
+	@Override
+	public void called(final Class<?> type) {
+		counters.get(type)[WITH_COUNTER].increment();
+	}
+	
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The time spent in, and the characters produced by, every visit to one section of
+ * a document, such as a node, within the same enclosing section.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class ProfileFrame {
+	
+	private final String name;
+	private final ProfileFrame parent;
+	private final Map<String, ProfileFrame> children = new LinkedHashMap<>();
+	private long count;
+	private long totalNanos;
+	private long characters;
+	private long startNanos;
+	private long startCharacters;
+	
+	ProfileFrame(final String name, final ProfileFrame parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+	
+	/**
+	 * Returns the name of this frame's section, e.g. the name of a node's class.
+	 * 
+	 * @return this frame's name
+	 */
+	public String name() {
+		return name;
+	}
+	
+	/**
+	 * Returns the number of visits to this frame's section.
+	 * 
+	 * @return the number of visits
+	 */
+	public long count() {
+		return count;
+	}
+	
+	/**
+	 * Returns the nanoseconds spent in this frame's section, including its children.
+	 * 
+	 * @return the total nanoseconds
+	 */
+	public long totalNanos() {
+		return totalNanos;
+	}
+	
+	/**
+	 * Returns the nanoseconds spent in this frame's section, excluding its children.
+	 * 
+	 * @return the self nanoseconds
+	 */
+	public long selfNanos() {
+		long self = totalNanos;
+		for (ProfileFrame child : children.values()) {
+			self -= child.totalNanos;
+		}
+		return self;
+	}
+	
+	/**
+	 * Returns the number of characters produced in this frame's section, including
+	 * its children.
+	 * 
+	 * @return the number of characters produced
+	 */
+	public long characters() {
+		return characters;
+	}
+	
+	/**
+	 * Returns the frames of the sections within this frame's section, in the order
+	 * they were first visited.
+	 * 
+	 * @return an unmodifiable view of this frame's children
+	 */
+	public Collection<ProfileFrame> children() {
+		return Collections.unmodifiableCollection(children.values());
+	}
+	
+	ProfileFrame parent() {
+		return parent;
+	}
+	
+	ProfileFrame child(final String childName) {
+		ProfileFrame child = children.get(childName);
+		if (child == null) {
+			child = new ProfileFrame(childName, this);
+			children.put(childName, child);
+		}
+		return child;
+	}
+	
+	void enter(final long nanos, final long position) {
+		startNanos = nanos;
+		startCharacters = position;
+	}
+	
+	void exit(final long nanos, final long position) {
+		count++;
+		totalNanos += nanos - startNanos;
+		characters += position - startCharacters;
+	}
+	
+	/**
+	 * Adds the visits, time and characters of the provided frame and its children to
+	 * this frame and its children.
+	 */
+	void merge(final ProfileFrame frame) {
+		count += frame.count;
+		totalNanos += frame.totalNanos;
+		characters += frame.characters;
+		for (ProfileFrame child : frame.children.values()) {
+			child(child.name).merge(child);
+		}
+	}
+	
+	/**
+	 * Outputs this frame and its descendants in the folded-stack format read by flame
+	 * graph tools: one line per frame, of the names of the frames from the outermost
+	 * to the frame separated by semicolons, a space, and the frame's self nanoseconds.
+	 * Frames without self time are omitted. Semicolons and whitespace within names,
+	 * which would break the format, are written as underscores.
+	 * 
+	 * @param appendable the appendable to output the lines to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void writeFolded(final Appendable appendable) throws IOException {
+		writeFolded(new StringBuilder(), appendable);
+	}
+	
+	void writeFolded(final StringBuilder stack, final Appendable appendable) throws IOException {
+		final int length = stack.length();
+		if (name != null) {
+			if (length > 0) stack.append(';');
+			appendName(stack, name);
+			final long self = selfNanos();
+			if (self > 0) appendable.append(stack).append(' ').append(Long.toString(self)).append('\n');
+		}
+		for (ProfileFrame child : children.values()) {
+			child.writeFolded(stack, appendable);
+		}
+		stack.setLength(length);
+	}
+	
+	private static void appendName(final StringBuilder stack, final String name) {
+		for (int index = 0; index < name.length(); index++) {
+			final char character = name.charAt(index);
+			stack.append(character == ';' || Character.isWhitespace(character) ? '_' : character);
+		}
+	}
+	
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import io.codecastle.scriptorium.NodeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The timing tree of one sampled document, obtained from {@link RenderProfiler#sample(LongSupplier)}.
+ * 
+ * <p>
+ * Each call to {@link #enter(String)} starts a section within the current section,
+ * and each call to {@link #exit()} ends the current section. As a
+ * {@link NodeListener}, a profile enters a section named after each node's class
+ * when the node is opened, and exits it once the node has been closed; the methods
+ * may also be called directly to time other sections, as long as every section is
+ * ended. Visits to sections of the same
+ * name within the same section share a {@link ProfileFrame}.
+ * 
+ * <p>
+ * When an outermost section ends, its frame is added to the profiler's totals.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class RenderProfile implements NodeListener {
+	
+	private final RenderProfiler profiler;
+	private final LongSupplier characters;
+	private final List<ProfileFrame> roots = new ArrayList<>();
+	private final Map<Class<?>, String> sectionNames = new HashMap<>();
+	private ProfileFrame current;
+	
+	RenderProfile(final RenderProfiler profiler, final LongSupplier characters) {
+		this.profiler = profiler;
+		this.characters = characters;
+	}
+	
+	/**
+	 * Starts a section with the provided name within the current section, or an
+	 * outermost section if there is no current section.
+	 * 
+	 * @param name the name of the section
+	 */
+	public void enter(final String name) {
+		if (name == null) throw new NullPointerException("name");
+		if (current == null) {
+			current = new ProfileFrame(name, null);
+			roots.add(current);
+		} else {
+			current = current.child(name);
+		}
+		current.enter(System.nanoTime(), position());
+	}
+	
+	/**
+	 * Ends the current section.
+	 * 
+	 * @throws IllegalStateException if there is no current section
+	 */
+	public void exit() {
+		if (current == null) throw new IllegalStateException("No section has been entered");
+		final ProfileFrame frame = current;
+		frame.exit(System.nanoTime(), position());
+		current = frame.parent();
+		if (current == null) profiler.merge(frame);
+	}
+	
+	/**
+	 * Enters a section named with the simple name of the provided class, or its full
+	 * name if it has no simple name.
+	 * 
+	 * @param type the class of the node
+	 * @param depth the number of nodes the node is opened within
+	 */
+	@Override
+	public void opened(final Class<?> type, final int depth) {
+		enter(sectionNames.computeIfAbsent(type, RenderProfile::sectionName));
+	}
+	
+	/**
+	 * Exits the current section.
+	 * 
+	 * @param type the class of the node
+	 * @param depth the number of nodes the node was opened within
+	 */
+	@Override
+	public void closed(final Class<?> type, final int depth) {
+		exit();
+	}
+	
+	/**
+	 * Returns the frames of the outermost sections, in the order they were started.
+	 * 
+	 * @return an unmodifiable view of this profile's outermost frames
+	 */
+	public List<ProfileFrame> roots() {
+		return Collections.unmodifiableList(roots);
+	}
+	
+	private static String sectionName(final Class<?> type) {
+		final String name = type.getSimpleName();
+		return name.isEmpty() ? type.getName() : name;
+	}
+	
+	private long position() {
+		return characters == null ? 0 : characters.getAsLong();
+	}
+	
+}
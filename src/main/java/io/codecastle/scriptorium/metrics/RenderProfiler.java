@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Samples one in every so many documents, and totals their timing trees by section,
+ * e.g. by node class, so that slow sections of a document can be found without an
+ * external profiler.
+ * 
+ * <p>
+ * For each document, {@link #sample(LongSupplier)} returns either null or a
+ * {@link RenderProfile} to construct the document's
+ * {@link io.codecastle.scriptorium.NodeStack} with, as its listener or one of
+ * several combined by {@link io.codecastle.scriptorium.NodeListener#of(io.codecastle.scriptorium.NodeListener...)};
+ * documents that are not sampled pay for one null check per node. The totals can be written in the folded-stack
+ * format read by flame graph tools.
+ * 
+ * <p>
+ * Instances of this class are thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class RenderProfiler {
+	
+	private final int interval;
+	private final AtomicLong documents = new AtomicLong();
+	private final ProfileFrame totals = new ProfileFrame(null, null);
+	private long sampled;
+	
+	/**
+	 * Constructs a new profiler that samples one in every {@code interval} documents.
+	 * 
+	 * @param interval the number of documents per sampled document; at least one
+	 * @throws IllegalArgumentException if {@code interval} is less than one
+	 */
+	public RenderProfiler(final int interval) {
+		if (interval < 1) throw new IllegalArgumentException("interval must be at least 1");
+		this.interval = interval;
+	}
+	
+	/**
+	 * Returns a new profile if this document is sampled, otherwise null.
+	 * 
+	 * @param characters a supplier of the number of characters output so far, e.g.
+	 * {@code builder::length}, or null to not count characters
+	 * @return a new profile, or null
+	 */
+	public RenderProfile sample(final LongSupplier characters) {
+		if (documents.getAndIncrement() % interval != 0) return null;
+		return new RenderProfile(this, characters);
+	}
+	
+	synchronized void merge(final ProfileFrame frame) {
+		totals.child(frame.name()).merge(frame);
+		sampled++;
+	}
+	
+	/**
+	 * Returns the number of outermost sections, usually documents, totalled.
+	 * 
+	 * @return the number of sampled documents that have been completed
+	 */
+	public synchronized long sampledCount() {
+		return sampled;
+	}
+	
+	/**
+	 * Returns a copy of the totals, as a frame without a name whose children are the
+	 * totals of the outermost sections.
+	 * 
+	 * @return a new frame holding a copy of the totals
+	 */
+	public synchronized ProfileFrame totals() {
+		final ProfileFrame copy = new ProfileFrame(null, null);
+		copy.merge(totals);
+		return copy;
+	}
+	
+	/**
+	 * Outputs the totals in the folded-stack format.
+	 * 
+	 * @param appendable the appendable to output the totals to
+	 * @throws IOException if an I/O error occurs
+	 * @see ProfileFrame#writeFolded(Appendable)
+	 */
+	public void writeFolded(final Appendable appendable) throws IOException {
+		totals().writeFolded(appendable);
+	}
+	
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+
+/**
+ * Opt-in counters that show where the time of a render goes, and the decorators
+ * and hooks that record them.
+ */
+package io.codecastle.scriptorium.metrics;
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link Escaper} that remembers the escaped form of short strings it has
+ * escaped, so that names, enum values and other strings that are escaped over and
+ * over are appended with a single call and without being scanned.
+ * 
+ * <p>
+ * The cache is a fixed-size table indexed by the hash code of each string. A string
+ * that needs no escaping is remembered as such, and is then appended unchanged. Only
+ * {@link String} instances no longer than the maximum length are cached; other
+ * sequences, ranges, and single characters are passed to the delegate escaper.
+ * 
+ * <p>
+ * Instances of this class are thread-safe if the delegate escaper is.
+ * 
+ * @author Doug Valenta
+ */
+public final class CachingEscaper implements Escaper {
+	
+	/**
+	 * The default number of entries in the table.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * The default length of the longest string that is cached.
+	 */
+	public static final int DEFAULT_MAXIMUM_LENGTH = 64;
+	
+	/**
+	 * A string and its escaped form, which is the same instance if it needs no
+	 * escaping.
+	 */
+	private static final class Entry {
+		
+		final String string;
+		final String escaped;
+		
+		Entry(final String string, final String escaped) {
+			this.string = string;
+			this.escaped = escaped;
+		}
+		
+	}
+	
+	private final Escaper delegate;
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask;
+	private final int maximumLength;
+	
+	/**
+	 * Constructs a new caching escaper that delegates to the provided escaper, with a
+	 * table of the default capacity that caches strings up to the default maximum
+	 * length.
+	 * 
+	 * @param delegate the escaper to escape strings that are not cached
+	 */
+	public CachingEscaper(final Escaper delegate) {
+		this(delegate, DEFAULT_CAPACITY, DEFAULT_MAXIMUM_LENGTH);
+	}
+	
+	/**
+	 * Constructs a new caching escaper that delegates to the provided escaper, with a
+	 * table of at least the provided capacity that caches strings up to the provided
+	 * maximum length.
+	 * 
+	 * @param delegate the escaper to escape strings that are not cached
+	 * @param capacity the minimum number of entries in the table; at least one
+	 * @param maximumLength the length of the longest string that is cached
+	 * @throws IllegalArgumentException if {@code capacity} is less than one or greater
+	 * than 2<sup>30</sup>, or {@code maximumLength} is negative
+	 */
+	public CachingEscaper(final Escaper delegate, final int capacity, final int maximumLength) {
+		if (delegate == null) throw new NullPointerException("delegate");
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity must be between 1 and " + (1 << 30));
+		}
+		if (maximumLength < 0) throw new IllegalArgumentException("maximumLength must not be negative");
+		int size = 1;
+		while (size < capacity) size <<= 1;
+		this.delegate = delegate;
+		this.entries = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		this.maximumLength = maximumLength;
+	}
+	
+	@Override
+	public void escape(final char character, final Appendable appendable) throws IOException {
+		delegate.escape(character, appendable);
+	}
+	
+	@Override
+	public boolean requiresEscape(final char character) {
+		return delegate.requiresEscape(character);
+	}
+	
+	@Override
+	public int indexOfEscape(final CharSequence sequence, final int start, final int end) {
+		return delegate.indexOfEscape(sequence, start, end);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * This implementation appends the cached escaped form of a short {@link String},
+	 * escaping and caching it first if it is not cached.
+	 */
+	@Override
+	public void escape(final CharSequence sequence, final Appendable appendable) throws IOException {
+		if (sequence instanceof String && sequence.length() <= maximumLength) {
+			appendable.append(escaped((String) sequence));
+		} else {
+			delegate.escape(sequence, appendable);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * This implementation uses the cache when the range covers a whole short
+	 * {@link String}.
+	 */
+	@Override
+	public void escape(final CharSequence sequence, final int start, final int end, final Appendable appendable) throws IOException {
+		if (start == 0 && end == sequence.length()) {
+			escape(sequence, appendable);
+		} else {
+			delegate.escape(sequence, start, end, appendable);
+		}
+	}
+	
+	/**
+	 * Returns the escaped form of the provided string, which is the same instance if it
+	 * needs no escaping.
+	 * 
+	 * @param string the string to escape
+	 * @return the escaped form of the string
+	 * @throws IOException if the delegate escaper throws an exception
+	 */
+	public String escaped(final String string) throws IOException {
+		final int index = spread(string.hashCode()) & mask;
+		final Entry entry = entries.get(index);
+		if (entry != null && (entry.string == string || entry.string.equals(string))) return entry.escaped;
+		final String escaped;
+		if (delegate.indexOfEscape(string, 0, string.length()) < 0) {
+			escaped = string;
+		} else {
+			final StringBuilder builder = new StringBuilder(string.length() + 16);
+			delegate.escape(string, builder);
+			escaped = string.contentEquals(builder) ? string : builder.toString();
+		}
+		if (string.length() <= maximumLength) entries.lazySet(index, new Entry(string, escaped));
+		return escaped;
+	}
+	
+	private static int spread(final int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+}
@@ -4,11 +4,18 @@
  */
 package io.codecastle.scriptorium.scribe;
 
+import io.codecastle.scriptorium.jfr.FlightEvents;
 import java.io.IOException;
 
 /**
  * Escapes characters being output to an {@link Appendable}.
  * 
+ * <p>
+ * Implementers that know which characters pass through unchanged should override
+ * {@link #requiresEscape(char)}, which allows the bulk {@link #escape(CharSequence, int, int, Appendable)}
+ * method to copy runs of unescaped characters with a single call to
+ * {@link Appendable#append(CharSequence, int, int)}.
+ * 
  * @author Doug Valenta
  */
 @FunctionalInterface
@@ -24,4 +31,110 @@ public interface Escaper {
 	 */
 	public void escape(char character, Appendable appendable) throws IOException;
 	
+	/**
+	 * Returns whether the provided character must be passed to {@link #escape(char, Appendable)},
+	 * as opposed to being appended unchanged.
+	 * 
+	 * <p>
+	 * The default implementation returns true for every character, which preserves
+	 * one call to {@link #escape(char, Appendable)} per character.
+	 * 
+	 * @param character the character to test
+	 * @return false if the character is always output unchanged, otherwise true
+	 */
+	public default boolean requiresEscape(final char character) {
+		return true;
+	}
+	
+	/**
+	 * Returns the index of the first character in a range of the provided sequence for
+	 * which {@link #requiresEscape(char)} returns true, or -1 if there is no such
+	 * character.
+	 * 
+	 * <p>
+	 * The default implementation tests each character in turn. Implementers may scan
+	 * several characters at a time, but must return the same result.
+	 * 
+	 * @param sequence the sequence to scan
+	 * @param start the index of the first character in the range
+	 * @param end the index after the last character in the range
+	 * @return the index of the first character in the range that requires escaping,
+	 * or -1 if no character in the range requires escaping
+	 */
+	public default int indexOfEscape(final CharSequence sequence, final int start, final int end) {
+		for (int index = start; index < end; index++) {
+			if (requiresEscape(sequence.charAt(index))) return index;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Outputs the characters of the provided sequence, escaping them as necessary, to
+	 * the provided {@link Appendable}.
+	 * 
+	 * <p>
+	 * The default implementation delegates to {@link #escape(CharSequence, int, int, Appendable)}
+	 * for the whole sequence.
+	 * 
+	 * @param sequence the characters to escape or append
+	 * @param appendable the appendable to append the characters or their escape sequences to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public default void escape(final CharSequence sequence, final Appendable appendable) throws IOException {
+		escape(sequence, 0, sequence.length(), appendable);
+	}
+	
+	/**
+	 * Outputs a range of characters from the provided sequence, escaping them as necessary,
+	 * to the provided {@link Appendable}.
+	 * 
+	 * <p>
+	 * The default implementation scans the range using {@link #indexOfEscape(CharSequence, int, int)}.
+	 * Runs of characters that do not require escaping are appended with a single call
+	 * to {@link Appendable#append(CharSequence, int, int)}, and every other character is
+	 * passed to {@link #escape(char, Appendable)}.
+	 * 
+	 * @param sequence the sequence containing the characters to escape or append
+	 * @param start the index of the first character in the range
+	 * @param end the index after the last character in the range
+	 * @param appendable the appendable to append the characters or their escape sequences to
+	 * @throws IOException if an I/O error occurs
+	 * @throws IndexOutOfBoundsException if {@code start} or {@code end} are negative,
+	 * {@code start} is greater than {@code end}, or {@code end} is greater than
+	 * {@code sequence.length()}
+	 */
+	public default void escape(final CharSequence sequence, final int start, final int end, final Appendable appendable) throws IOException {
+		if (start < 0 || start > end || end > sequence.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + sequence.length());
+		}
+		final Object event = FlightEvents.beginEscape(getClass(), end - start);
+		int run = start;
+		int index;
+		while ((index = indexOfEscape(sequence, run, end)) >= 0) {
+			if (run < index) appendable.append(sequence, run, index);
+			escape(sequence.charAt(index), appendable);
+			run = index + 1;
+		}
+		if (run < end) appendable.append(sequence, run, end);
+		FlightEvents.end(event);
+	}
+	
+	/**
+	 * Returns an escaper that escapes each character with this escaper, then escapes
+	 * the result with the provided escaper; e.g. for JSON text within an HTML document,
+	 * {@code json.andThen(html)}.
+	 * 
+	 * <p>
+	 * The returned escaper makes a single pass: escapers built by {@link EscaperBuilder}
+	 * are fused into a single table, and other escapers share a precomputed table for
+	 * the Latin-1 range. Building that table has a cost, so the returned escaper should
+	 * be kept and reused rather than built again for each use.
+	 * 
+	 * @param outer the escaper for the context this escaper's output is written in
+	 * @return an escaper equivalent to this escaper followed by the provided escaper
+	 */
+	public default Escaper andThen(final Escaper outer) {
+		return FusedEscapers.fuse(this, outer);
+	}
+	
 }
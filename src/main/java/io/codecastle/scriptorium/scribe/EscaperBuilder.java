@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Builds immutable, table-driven {@link Escaper} instances from a mapping of
+ * characters to replacement sequences.
+ * 
+ * <p>
+ * Escapers built by this class look up replacements for characters in the Latin-1
+ * range (U+0000 through U+00FF) with a single array access, and
+ * use a binary search over a sorted array for higher characters. Characters without
+ * a replacement are appended unchanged, and runs of such characters are appended with
+ * a single call to {@link Appendable#append(CharSequence, int, int)}.
+ * 
+ * <p>
+ * Builders may be reused after calling {@link #build()}; escapers that were already
+ * built are not affected by subsequent changes to the builder.
+ * 
+ * @author Doug Valenta
+ */
+public class EscaperBuilder {
+	
+	private final SortedMap<Character, String> replacements = new TreeMap<>();
+	
+	/**
+	 * Maps the provided character to the provided replacement sequence, replacing
+	 * any previous mapping of the character, and returns this object.
+	 * 
+	 * @param character the character to escape
+	 * @param replacement the sequence to output in place of the character
+	 * @return this object
+	 * @throws NullPointerException if {@code replacement} is null
+	 */
+	public EscaperBuilder escape(final char character, final CharSequence replacement) {
+		replacements.put(character, replacement.toString());
+		return this;
+	}
+	
+	/**
+	 * Maps each character in the provided inclusive range to the sequence returned by
+	 * the provided function, replacing any previous mappings of those characters, and
+	 * returns this object.
+	 * 
+	 * <p>
+	 * The function is called once for each character in the range when this method
+	 * is called, not when characters are escaped.
+	 * 
+	 * @param first the first character in the range
+	 * @param last the last character in the range
+	 * @param replacement a function that returns the sequence to output in place of the
+	 * character passed as its argument
+	 * @return this object
+	 * @throws IllegalArgumentException if {@code first} is greater than {@code last}
+	 * @throws NullPointerException if {@code replacement} is null, or returns null
+	 */
+	public EscaperBuilder escape(final char first, final char last, final IntFunction<? extends CharSequence> replacement) {
+		if (first > last) {
+			throw new IllegalArgumentException("first " + (int) first + " is greater than last " + (int) last);
+		}
+		for (int character = first; character <= last; character++) {
+			escape((char) character, replacement.apply(character));
+		}
+		return this;
+	}
+	
+	/**
+	 * Constructs a new immutable {@link Escaper} from the mappings in this builder.
+	 * 
+	 * @return a new escaper
+	 */
+	public Escaper build() {
+		final String[] table = new String[TableEscaper.TABLE_SIZE];
+		final int highCount = replacements.size() - replacements.headMap((char) TableEscaper.TABLE_SIZE).size();
+		final char[] highCharacters = new char[highCount];
+		final String[] highReplacements = new String[highCount];
+		int highIndex = 0;
+		for (Map.Entry<Character, String> entry : replacements.entrySet()) {
+			final char character = entry.getKey();
+			if (character < TableEscaper.TABLE_SIZE) {
+				table[character] = entry.getValue();
+			} else {
+				highCharacters[highIndex] = character;
+				highReplacements[highIndex] = entry.getValue();
+				highIndex++;
+			}
+		}
+		return new TableEscaper(table, highCharacters, highReplacements);
+	}
+	
+}
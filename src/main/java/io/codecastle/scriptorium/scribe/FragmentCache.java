@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import io.codecastle.scriptorium.function.IOConsumer;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the output of renderers, so that fragments that rarely change, such as
+ * navigation or reference data, are rendered once and then output with a single
+ * call to {@link Appendable#append(CharSequence)}.
+ * 
+ * <p>
+ * Fragments are identified by a caller-supplied key and version. A fragment is
+ * rendered again when its key is requested with a different version, or after it
+ * has been evicted. The total length of cached fragments is bounded; when it is
+ * exceeded, the least recently used fragments are evicted.
+ * 
+ * <p>
+ * Instances of this class are thread-safe. A renderer is called without any lock
+ * held, so two threads that miss the same fragment at once may both render it, and
+ * both outputs are correct. Versions only move forward: a rendered fragment is not
+ * cached if a fragment with a newer version is cached for its key, so a slow or late
+ * render of an old version does not replace a newer fragment.
+ * 
+ * @author Doug Valenta
+ */
+public final class FragmentCache {
+	
+	private static final class Entry {
+		
+		final long version;
+		final String fragment;
+		
+		Entry(final long version, final String fragment) {
+			this.version = version;
+			this.fragment = fragment;
+		}
+		
+	}
+	
+	private final int maximumLength;
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private long length;
+	
+	/**
+	 * Constructs a new cache that holds fragments with a total length of at most the
+	 * provided number of characters.
+	 * 
+	 * @param maximumLength the maximum total length of cached fragments
+	 * @throws IllegalArgumentException if {@code maximumLength} is negative
+	 */
+	public FragmentCache(final int maximumLength) {
+		if (maximumLength < 0) throw new IllegalArgumentException("maximumLength must not be negative");
+		this.maximumLength = maximumLength;
+	}
+	
+	/**
+	 * Outputs the fragment cached for the provided key and version to the provided
+	 * {@link Appendable}; or, if there is none, renders the fragment by calling the
+	 * provided renderer, caches it, and outputs it.
+	 * 
+	 * <p>
+	 * A fragment longer than the maximum length of this cache is output but not cached.
+	 * 
+	 * @param key the key that identifies the fragment
+	 * @param version the version of the fragment
+	 * @param renderer the consumer that renders the fragment to the {@link Appendable}
+	 * it is passed
+	 * @param appendable the appendable to output the fragment to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void render(final Object key, final long version, final IOConsumer<? super Appendable> renderer, final Appendable appendable) throws IOException {
+		if (key == null) throw new NullPointerException("key");
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.version == version) {
+			hits.increment();
+		} else {
+			misses.increment();
+			final StringBuilder builder = new StringBuilder();
+			renderer.accept(builder);
+			final Entry rendered = new Entry(version, builder.toString());
+			put(key, rendered);
+			entry = rendered;
+		}
+		appendable.append(entry.fragment);
+	}
+	
+	/**
+	 * Caches the provided entry, unless the entry cached for the key has a newer
+	 * version.
+	 * 
+	 * @param key the key that identifies the fragment
+	 * @param entry the rendered entry
+	 */
+	private void put(final Object key, final Entry entry) {
+		final int fragmentLength = entry.fragment.length();
+		if (fragmentLength > maximumLength) return;
+		synchronized (entries) {
+			final Entry current = entries.get(key);
+			if (current != null && entry.version < current.version) return;
+			final Entry previous = entries.put(key, entry);
+			if (previous != null) length -= previous.fragment.length();
+			length += fragmentLength;
+			final Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+			while (length > maximumLength) {
+				final Entry evicted = eldest.next().getValue();
+				eldest.remove();
+				length -= evicted.fragment.length();
+				evictions.increment();
+			}
+		}
+	}
+	
+	/**
+	 * Removes the fragment cached for the provided key, if there is one.
+	 * 
+	 * @param key the key that identifies the fragment
+	 */
+	public void invalidate(final Object key) {
+		synchronized (entries) {
+			final Entry removed = entries.remove(key);
+			if (removed != null) length -= removed.fragment.length();
+		}
+	}
+	
+	/**
+	 * Removes every cached fragment.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			length = 0;
+		}
+	}
+	
+	/**
+	 * Returns the number of cached fragments.
+	 * 
+	 * @return the number of cached fragments
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * Returns the total length of cached fragments.
+	 * 
+	 * @return the total length of cached fragments in characters
+	 */
+	public long length() {
+		synchronized (entries) {
+			return length;
+		}
+	}
+	
+	/**
+	 * Returns the number of calls to {@link #render(Object, long, IOConsumer, Appendable)}
+	 * that output a cached fragment.
+	 * 
+	 * @return the number of cache hits
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Returns the number of calls to {@link #render(Object, long, IOConsumer, Appendable)}
+	 * that rendered a fragment.
+	 * 
+	 * @return the number of cache misses
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+	
+	/**
+	 * Returns the number of fragments evicted to keep the total length of cached
+	 * fragments within the maximum.
+	 * 
+	 * @return the number of evictions
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+	
+}
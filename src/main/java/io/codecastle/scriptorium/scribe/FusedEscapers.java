@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import io.codecastle.scriptorium.jfr.FlightEvents;
+import java.io.IOException;
+
+/**
+ * Implements {@link Escaper#andThen(Escaper)}.
+ * 
+ * <p>
+ * Two table escapers are fused into one table escaper. Any other pair is composed
+ * into an escaper with a precomputed table for the Latin-1 range, which falls back
+ * to calling both escapers for higher characters. Fused escapers are not cached
+ * here, so callers keep them for as long as the pair is in use.
+ * 
+ * @author Doug Valenta
+ */
+final class FusedEscapers {
+	
+	private FusedEscapers() {
+	}
+	
+	static Escaper fuse(final Escaper inner, final Escaper outer) {
+		if (outer == null) throw new NullPointerException("outer");
+		if (inner instanceof TableEscaper && outer instanceof TableEscaper) {
+			return TableEscaper.fuse((TableEscaper) inner, (TableEscaper) outer);
+		}
+		return new ComposedEscaper(inner, outer);
+	}
+	
+	/**
+	 * Escapes with an inner escaper and then an outer escaper, using a table of the
+	 * combined result for the Latin-1 range.
+	 */
+	private static final class ComposedEscaper implements Escaper {
+		
+		private final Escaper inner;
+		private final Escaper outer;
+		private final String[] table = new String[TableEscaper.TABLE_SIZE];
+		
+		ComposedEscaper(final Escaper inner, final Escaper outer) {
+			this.inner = inner;
+			this.outer = outer;
+			final StringBuilder escaped = new StringBuilder();
+			final StringBuilder fused = new StringBuilder();
+			try {
+				for (int character = 0; character < TableEscaper.TABLE_SIZE; character++) {
+					escaped.setLength(0);
+					fused.setLength(0);
+					inner.escape((char) character, escaped);
+					outer.escape(escaped, fused);
+					if (fused.length() != 1 || fused.charAt(0) != character) table[character] = fused.toString();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("StringBuilder threw an IOException", e);
+			}
+		}
+		
+		@Override
+		public void escape(final char character, final Appendable appendable) throws IOException {
+			escape(character, appendable, null);
+		}
+		
+		/**
+		 * Escapes a range like the default implementation, but reuses one buffer for
+		 * the output of the inner escaper for every character above the table.
+		 */
+		@Override
+		public void escape(final CharSequence sequence, final int start, final int end, final Appendable appendable) throws IOException {
+			if (start < 0 || start > end || end > sequence.length()) {
+				throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + sequence.length());
+			}
+			final Object event = FlightEvents.beginEscape(getClass(), end - start);
+			StringBuilder escaped = null;
+			int run = start;
+			int index;
+			while ((index = indexOfEscape(sequence, run, end)) >= 0) {
+				if (run < index) appendable.append(sequence, run, index);
+				final char character = sequence.charAt(index);
+				if (escaped == null && character >= TableEscaper.TABLE_SIZE) escaped = new StringBuilder();
+				escape(character, appendable, escaped);
+				run = index + 1;
+			}
+			if (run < end) appendable.append(sequence, run, end);
+			FlightEvents.end(event);
+		}
+		
+		/**
+		 * Escapes a character, using the provided buffer, if any, for the output of the
+		 * inner escaper.
+		 */
+		private void escape(final char character, final Appendable appendable, final StringBuilder buffer) throws IOException {
+			if (character < TableEscaper.TABLE_SIZE) {
+				final String replacement = table[character];
+				if (replacement == null) {
+					appendable.append(character);
+				} else {
+					appendable.append(replacement);
+				}
+			} else if (inner.requiresEscape(character)) {
+				final StringBuilder escaped;
+				if (buffer == null) {
+					escaped = new StringBuilder();
+				} else {
+					escaped = buffer;
+					escaped.setLength(0);
+				}
+				inner.escape(character, escaped);
+				outer.escape(escaped, appendable);
+			} else {
+				outer.escape(character, appendable);
+			}
+		}
+		
+		@Override
+		public boolean requiresEscape(final char character) {
+			if (character < TableEscaper.TABLE_SIZE) return table[character] != null;
+			return inner.requiresEscape(character) || outer.requiresEscape(character);
+		}
+		
+		@Override
+		public int indexOfEscape(final CharSequence sequence, final int start, final int end) {
+			for (int index = start; index < end; index++) {
+				if (requiresEscape(sequence.charAt(index))) return index;
+			}
+			return -1;
+		}
+		
+	}
+	
+}
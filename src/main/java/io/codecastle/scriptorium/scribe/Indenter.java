@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import java.io.IOException;
+
+/**
+ * Tracks nesting depth and outputs line breaks followed by indentation to an
+ * {@link Appendable}.
+ * 
+ * <p>
+ * Each line break is output with a single call to {@link Appendable#append(CharSequence, int, int)},
+ * as a range of a precomputed string holding the newline followed by the indentation
+ * unit repeated for the deepest level reached so far. The string is rebuilt, twice as
+ * deep, only when that depth is exceeded.
+ * 
+ * <p>
+ * A compact indenter, returned by {@link #compact(Appendable)}, outputs nothing and
+ * does not track depth, so that minified output does not pay for pretty-printing.
+ * 
+ * @author Doug Valenta
+ */
+public class Indenter {
+	
+	/**
+	 * The character sequences that may be used to break lines.
+	 */
+	public enum Newline {
+		
+		/**
+		 * A line feed, {@code "\n"}.
+		 */
+		LF("\n"),
+		
+		/**
+		 * A carriage return followed by a line feed, {@code "\r\n"}.
+		 */
+		CRLF("\r\n");
+		
+		private final String sequence;
+		
+		private Newline(final String sequence) {
+			this.sequence = sequence;
+		}
+		
+		/**
+		 * Returns the characters that break a line.
+		 * 
+		 * @return the characters that break a line
+		 */
+		public String sequence() {
+			return sequence;
+		}
+		
+	}
+	
+	private static final int INITIAL_DEPTH = 16;
+	
+	private final Appendable appendable;
+	private final String unit;
+	private final Newline newline;
+	private final boolean compact;
+	private String prefixes;
+	private int depth;
+	
+	/**
+	 * Constructs a new indenter that outputs line breaks to the provided {@link Appendable},
+	 * followed by the provided unit once for each level of depth.
+	 * 
+	 * @param appendable {@link Appendable} the new instance will output to
+	 * @param unit the indentation for one level of depth, such as a tab or spaces
+	 * @param newline the characters that break a line
+	 */
+	public Indenter(final Appendable appendable, final String unit, final Newline newline) {
+		this(appendable, unit, newline, false);
+	}
+	
+	private Indenter(final Appendable appendable, final String unit, final Newline newline, final boolean compact) {
+		if (appendable == null) throw new NullPointerException("appendable");
+		if (unit == null) throw new NullPointerException("unit");
+		if (newline == null) throw new NullPointerException("newline");
+		this.appendable = appendable;
+		this.unit = unit;
+		this.newline = newline;
+		this.compact = compact;
+	}
+	
+	/**
+	 * Returns a new indenter on the provided {@link Appendable} whose methods output
+	 * nothing and do not track depth.
+	 * 
+	 * @param appendable {@link Appendable} the new instance would output to
+	 * @return a compact indenter
+	 */
+	public static Indenter compact(final Appendable appendable) {
+		return new Indenter(appendable, "", Newline.LF, true);
+	}
+	
+	/**
+	 * Returns whether this indenter is compact, in which case its methods output
+	 * nothing and do not track depth.
+	 * 
+	 * @return true if this indenter is compact, otherwise false
+	 */
+	public boolean isCompact() {
+		return compact;
+	}
+	
+	/**
+	 * Returns the current depth, which is always zero for a compact indenter.
+	 * 
+	 * @return the current depth
+	 */
+	public int depth() {
+		return depth;
+	}
+	
+	/**
+	 * Increases the depth by one level and returns this object.
+	 * 
+	 * @return this object
+	 */
+	public Indenter push() {
+		if (!compact) depth++;
+		return this;
+	}
+	
+	/**
+	 * Decreases the depth by one level and returns this object.
+	 * 
+	 * @return this object
+	 * @throws IllegalStateException if the depth is already zero
+	 */
+	public Indenter pop() {
+		if (!compact) {
+			if (depth == 0) throw new IllegalStateException("Depth is already zero");
+			depth--;
+		}
+		return this;
+	}
+	
+	/**
+	 * Outputs a line break followed by the indentation for the current depth and
+	 * returns this object.
+	 * 
+	 * @return this object
+	 * @throws IOException if an I/O error occurs
+	 */
+	public Indenter newlineAndIndent() throws IOException {
+		if (!compact) {
+			final int length = newline.sequence.length() + depth * unit.length();
+			if (prefixes == null || length > prefixes.length()) {
+				prefixes = prefixes(Math.max(INITIAL_DEPTH, depth * 2));
+			}
+			appendable.append(prefixes, 0, length);
+		}
+		return this;
+	}
+	
+	/**
+	 * Outputs the indentation for the current depth, without a line break, and returns
+	 * this object.
+	 * 
+	 * @return this object
+	 * @throws IOException if an I/O error occurs
+	 */
+	public Indenter indent() throws IOException {
+		if (!compact && depth > 0) {
+			final int start = newline.sequence.length();
+			final int end = start + depth * unit.length();
+			if (prefixes == null || end > prefixes.length()) {
+				prefixes = prefixes(Math.max(INITIAL_DEPTH, depth * 2));
+			}
+			appendable.append(prefixes, start, end);
+		}
+		return this;
+	}
+	
+	private String prefixes(final int levels) {
+		final StringBuilder builder = new StringBuilder(newline.sequence.length() + levels * unit.length());
+		builder.append(newline.sequence);
+		for (int level = 0; level < levels; level++) {
+			builder.append(unit);
+		}
+		return builder.toString();
+	}
+	
+}
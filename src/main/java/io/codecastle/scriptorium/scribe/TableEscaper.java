@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.scribe;
+
+import io.codecastle.scriptorium.jfr.FlightEvents;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An immutable {@link Escaper} backed by a lookup table for the Latin-1 range and a
+ * sorted array of higher characters.
+ * 
+ * @author Doug Valenta
+ * @see EscaperBuilder
+ */
+final class TableEscaper implements Escaper {
+	
+	static final int TABLE_SIZE = 256;
+	
+	private final String[] table;
+	private final char[] highCharacters;
+	private final String[] highReplacements;
+	
+	TableEscaper(final String[] table, final char[] highCharacters, final String[] highReplacements) {
+		this.table = table;
+		this.highCharacters = highCharacters;
+		this.highReplacements = highReplacements;
+	}
+	
+	/**
+	 * Returns a table escaper equivalent to escaping with the provided inner escaper,
+	 * then escaping its output with the provided outer escaper.
+	 */
+	static TableEscaper fuse(final TableEscaper inner, final TableEscaper outer) {
+		final EscaperBuilder builder = new EscaperBuilder();
+		for (int character = 0; character < TABLE_SIZE; character++) {
+			fuse(inner, outer, (char) character, builder);
+		}
+		for (char character : inner.highCharacters) {
+			fuse(inner, outer, character, builder);
+		}
+		for (char character : outer.highCharacters) {
+			fuse(inner, outer, character, builder);
+		}
+		return (TableEscaper) builder.build();
+	}
+	
+	private static void fuse(final TableEscaper inner, final TableEscaper outer, final char character, final EscaperBuilder builder) {
+		final String innerReplacement = inner.replacement(character);
+		if (innerReplacement == null) {
+			final String outerReplacement = outer.replacement(character);
+			if (outerReplacement != null) builder.escape(character, outerReplacement);
+		} else {
+			final StringBuilder fused = new StringBuilder(innerReplacement.length() * 2);
+			for (int index = 0; index < innerReplacement.length(); index++) {
+				final char escaped = innerReplacement.charAt(index);
+				final String outerReplacement = outer.replacement(escaped);
+				if (outerReplacement == null) {
+					fused.append(escaped);
+				} else {
+					fused.append(outerReplacement);
+				}
+			}
+			if (fused.length() != 1 || fused.charAt(0) != character) builder.escape(character, fused);
+		}
+	}
+	
+	String replacement(final char character) {
+		if (character < TABLE_SIZE) return table[character];
+		if (highCharacters.length == 0) return null;
+		final int index = Arrays.binarySearch(highCharacters, character);
+		return index < 0 ? null : highReplacements[index];
+	}
+	
+	@Override
+	public void escape(final char character, final Appendable appendable) throws IOException {
+		final String replacement = replacement(character);
+		if (replacement == null) {
+			appendable.append(character);
+		} else {
+			appendable.append(replacement);
+		}
+	}
+	
+	@Override
+	public boolean requiresEscape(final char character) {
+		return replacement(character) != null;
+	}
+	
+	@Override
+	public int indexOfEscape(final CharSequence sequence, final int start, final int end) {
+		for (int index = start; index < end; index++) {
+			final char character = sequence.charAt(index);
+			if (character < TABLE_SIZE) {
+				if (table[character] != null) return index;
+			} else if (highCharacters.length != 0 && Arrays.binarySearch(highCharacters, character) >= 0) {
+				return index;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public void escape(final CharSequence sequence, final int start, final int end, final Appendable appendable) throws IOException {
+		if (start < 0 || start > end || end > sequence.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + sequence.length());
+		}
+		final Object event = FlightEvents.beginEscape(getClass(), end - start);
+		int run = start;
+		int index;
+		while ((index = indexOfEscape(sequence, run, end)) >= 0) {
+			if (run < index) appendable.append(sequence, run, index);
+			appendable.append(replacement(sequence.charAt(index)));
+			run = index + 1;
+		}
+		if (run < end) appendable.append(sequence, run, end);
+		FlightEvents.end(event);
+	}
+	
+}
@@ -10,6 +10,10 @@ import java.util.Arrays;
 /**
  * Outputs whitespace characters to an {@link Appendable}.
  * 
+ * <p>
+ * Methods of this class do not allocate objects; runs of whitespace are appended as ranges
+ * of precomputed strings.
+ * 
  * @author Doug Valenta
  */
 public class Whitespace {
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import io.codecastle.scriptorium.jfr.FlightEvents;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FluentAppendable} that encodes characters as UTF-8 directly into a
+ * {@link ByteBuffer}, which subclasses drain to a destination.
+ * 
+ * <p>
+ * Runs of ASCII characters are copied into the buffer without further encoding.
+ * A high surrogate at the end of one call to an {@code append} method is held until
+ * the next call, so surrogate pairs may be split across calls. Unpaired surrogates
+ * are encoded as {@code '?'}, as with {@link String#getBytes(java.nio.charset.Charset)}.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ * @param <THIS> this type
+ */
+public abstract class AbstractUtf8Sink<THIS extends AbstractUtf8Sink<THIS>> implements FluentAppendable<THIS>, Flushable, Closeable {
+	
+	/**
+	 * The number of bytes of space a buffer must have remaining, enough to encode any
+	 * single code point.
+	 */
+	protected static final int MINIMUM_REMAINING = 4;
+	
+	private static final byte REPLACEMENT = '?';
+	private static final char NO_SURROGATE = 0;
+	
+	private ByteBuffer buffer;
+	private char highSurrogate = NO_SURROGATE;
+	private boolean closed;
+	
+	/**
+	 * Constructs a new sink that encodes into the provided buffer, starting at its
+	 * current position.
+	 * 
+	 * @param buffer the buffer to encode into
+	 * @throws IllegalArgumentException if the buffer has fewer than four bytes remaining
+	 */
+	protected AbstractUtf8Sink(final ByteBuffer buffer) {
+		if (buffer.remaining() < MINIMUM_REMAINING) {
+			throw new IllegalArgumentException("buffer must have at least " + MINIMUM_REMAINING + " bytes remaining");
+		}
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Delivers the bytes written to the provided buffer, and returns the buffer to
+	 * continue encoding into.
+	 * 
+	 * <p>
+	 * The provided buffer is in write mode: bytes up to its position have been
+	 * encoded since it was last returned by this method (or passed to the constructor).
+	 * The returned buffer may be the same buffer after it has been cleared, or a
+	 * different buffer, and must have at least four bytes remaining.
+	 * 
+	 * @param buffer the buffer to drain
+	 * @return the buffer to continue encoding into
+	 * @throws IOException if an I/O error occurs
+	 */
+	protected abstract ByteBuffer drain(ByteBuffer buffer) throws IOException;
+	
+	/**
+	 * Called once, by the first call to {@link #close()}, after the buffer has been
+	 * drained for the last time.
+	 * 
+	 * <p>
+	 * The default implementation does nothing.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	protected void onClose() throws IOException {
+	}
+	
+	/**
+	 * Returns whether {@link #close()} has been called.
+	 * 
+	 * @return true if this sink has been closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	@Override
+	public THIS append(final char character) throws IOException {
+		ensureOpen();
+		if (highSurrogate != NO_SURROGATE) {
+			final char high = highSurrogate;
+			highSurrogate = NO_SURROGATE;
+			if (Character.isLowSurrogate(character)) {
+				putCodePoint(Character.toCodePoint(high, character));
+				return (THIS) this;
+			}
+			putReplacement();
+		}
+		if (character < 0x80) {
+			reserve(1);
+			buffer.put((byte) character);
+		} else if (Character.isHighSurrogate(character)) {
+			highSurrogate = character;
+		} else {
+			putNonAscii(character);
+		}
+		return (THIS) this;
+	}
+	
+	@Override
+	public THIS append(final CharSequence sequence) throws IOException {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		return append(nonNull, 0, nonNull.length());
+	}
+	
+	@Override
+	public THIS append(final CharSequence sequence, final int start, final int end) throws IOException {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		if (start < 0 || start > end || end > nonNull.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + nonNull.length());
+		}
+		ensureOpen();
+		int index = start;
+		if (highSurrogate != NO_SURROGATE && index < end) {
+			append(nonNull.charAt(index++));
+		}
+		while (index < end) {
+			index = putAscii(nonNull, index, end);
+			if (index < end) {
+				final char character = nonNull.charAt(index++);
+				if (character < 0x80) {
+					reserve(1);
+					buffer.put((byte) character);
+				} else if (!Character.isHighSurrogate(character)) {
+					putNonAscii(character);
+				} else if (index == end) {
+					highSurrogate = character;
+				} else if (Character.isLowSurrogate(nonNull.charAt(index))) {
+					putCodePoint(Character.toCodePoint(character, nonNull.charAt(index++)));
+				} else {
+					putReplacement();
+				}
+			}
+		}
+		return (THIS) this;
+	}
+	
+	/**
+	 * Drains any encoded bytes to the destination.
+	 * 
+	 * <p>
+	 * A high surrogate whose low surrogate has not yet been appended is retained.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		final Object event = FlightEvents.beginFlush(getClass(), buffer.position());
+		buffer = drain(buffer);
+		FlightEvents.end(event);
+	}
+	
+	/**
+	 * Drains any encoded bytes to the destination and closes this sink.
+	 * 
+	 * <p>
+	 * A high surrogate whose low surrogate was never appended is encoded as
+	 * {@code '?'}. Subsequent calls to this method have no effect.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		if (highSurrogate != NO_SURROGATE) {
+			highSurrogate = NO_SURROGATE;
+			putReplacement();
+		}
+		closed = true;
+		try {
+			buffer = drain(buffer);
+		} finally {
+			onClose();
+		}
+	}
+	
+	private void ensureOpen() throws IOException {
+		if (closed) throw new IOException("Sink is closed");
+	}
+	
+	private void reserve(final int count) throws IOException {
+		if (buffer.remaining() < count) buffer = drain(buffer);
+	}
+	
+	private int putAscii(final CharSequence sequence, final int start, final int end) {
+		final ByteBuffer target = buffer;
+		int index = start;
+		final int limit = start + Math.min(end - start, target.remaining());
+		if (target.hasArray()) {
+			final byte[] array = target.array();
+			final int offset = target.arrayOffset();
+			int position = target.position();
+			while (index < limit) {
+				final char character = sequence.charAt(index);
+				if (character >= 0x80) break;
+				array[offset + position++] = (byte) character;
+				index++;
+			}
+			target.position(position);
+		} else {
+			while (index < limit) {
+				final char character = sequence.charAt(index);
+				if (character >= 0x80) break;
+				target.put((byte) character);
+				index++;
+			}
+		}
+		return index;
+	}
+	
+	private void putNonAscii(final char character) throws IOException {
+		if (Character.isSurrogate(character)) {
+			putReplacement();
+		} else if (character < 0x800) {
+			reserve(2);
+			buffer.put((byte) (0xc0 | character >> 6));
+			buffer.put((byte) (0x80 | character & 0x3f));
+		} else {
+			reserve(3);
+			buffer.put((byte) (0xe0 | character >> 12));
+			buffer.put((byte) (0x80 | character >> 6 & 0x3f));
+			buffer.put((byte) (0x80 | character & 0x3f));
+		}
+	}
+	
+	private void putCodePoint(final int codePoint) throws IOException {
+		reserve(4);
+		buffer.put((byte) (0xf0 | codePoint >> 18));
+		buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+		buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+		buffer.put((byte) (0x80 | codePoint & 0x3f));
+	}
+	
+	private void putReplacement() throws IOException {
+		reserve(1);
+		buffer.put(REPLACEMENT);
+	}
+	
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes characters as UTF-8 into direct buffers outside the Java heap, up to a
+ * memory budget, and into a temporary file beyond it, so that a whole document can
+ * be built before deciding whether to send it.
+ * 
+ * <p>
+ * Output is encoded into direct segments of a fixed size. When a segment is full
+ * and another segment would exceed the memory budget, the rest of the output is
+ * written to a temporary file through one further segment. Once the sink is closed,
+ * {@link #transferTo(WritableByteChannel)} writes the segments to a destination,
+ * followed by the file using {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * which avoids copying the file's contents through the Java heap. The output may be
+ * transferred any number of times, until {@link #discard()} is called.
+ * 
+ * <p>
+ * The temporary file is deleted when the sink is discarded. Segments are freed
+ * when they are garbage collected after the sink is discarded. Closing the sink
+ * does not release either, so {@link #discard()} must be called once the output is
+ * no longer needed, e.g. in a {@code finally} block; otherwise the temporary file
+ * remains open, and its disk space in use, until the JVM exits.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class ArenaSink extends AbstractUtf8Sink<ArenaSink> {
+	
+	/**
+	 * The default size, in bytes, of each segment.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 10;
+	
+	/**
+	 * The default total size, in bytes, of the segments that hold output in memory.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 64 << 20;
+	
+	/**
+	 * The smallest segment size chosen by {@link #sized(long, Path)}.
+	 */
+	private static final int MINIMUM_SIZED_SEGMENT = 1 << 10;
+	
+	private final int segmentSize;
+	private final long memoryBudget;
+	private final Path directory;
+	private final List<ByteBuffer> segments = new ArrayList<>();
+	private FileChannel file;
+	private ByteBuffer spillSegment;
+	private boolean discarded;
+	
+	/**
+	 * Constructs a new sink with segments of the default size and the default memory
+	 * budget, which spills to a file in the default temporary-file directory.
+	 */
+	public ArenaSink() {
+		this(DEFAULT_SEGMENT_SIZE, DEFAULT_MEMORY_BUDGET, null);
+	}
+	
+	/**
+	 * Constructs a new sink with segments of the provided size and the provided memory
+	 * budget, which spills to a file in the provided directory.
+	 * 
+	 * @param segmentSize the size, in bytes, of each segment; at least four
+	 * @param memoryBudget the maximum total size, in bytes, of the segments that hold
+	 * output in memory; at least {@code segmentSize}
+	 * @param directory the directory to create the temporary file in, or null for the
+	 * default temporary-file directory
+	 * @throws IllegalArgumentException if {@code segmentSize} is less than four, or
+	 * {@code memoryBudget} is less than {@code segmentSize}
+	 */
+	public ArenaSink(final int segmentSize, final long memoryBudget, final Path directory) {
+		this(allocate(segmentSize, memoryBudget), memoryBudget, directory);
+	}
+	
+	/**
+	 * Returns a new sink with the default memory budget, whose segments are sized to
+	 * hold the provided number of bytes in one segment, but no larger than the default
+	 * segment size, and which spills to a file in the provided directory.
+	 * 
+	 * <p>
+	 * Small documents therefore do not reserve a whole default segment of direct
+	 * memory, e.g. when the expected size is advised by a {@link SizeAdvisor}. A
+	 * document larger than expected continues in further segments of the same size.
+	 * 
+	 * @param expectedSize the expected number of bytes of output
+	 * @param directory the directory to create the temporary file in, or null for the
+	 * default temporary-file directory
+	 * @return a new sink
+	 * @throws IllegalArgumentException if {@code expectedSize} is negative
+	 */
+	public static ArenaSink sized(final long expectedSize, final Path directory) {
+		if (expectedSize < 0) throw new IllegalArgumentException("expectedSize must not be negative");
+		final long segmentSize = Math.max(MINIMUM_SIZED_SEGMENT, Math.min(DEFAULT_SEGMENT_SIZE, expectedSize + MINIMUM_REMAINING));
+		return new ArenaSink((int) segmentSize, DEFAULT_MEMORY_BUDGET, directory);
+	}
+	
+	private ArenaSink(final ByteBuffer segment, final long memoryBudget, final Path directory) {
+		super(segment);
+		this.segmentSize = segment.capacity();
+		this.memoryBudget = memoryBudget;
+		this.directory = directory;
+		segments.add(segment);
+	}
+	
+	private static ByteBuffer allocate(final int segmentSize, final long memoryBudget) {
+		if (segmentSize < MINIMUM_REMAINING) {
+			throw new IllegalArgumentException("segmentSize must be at least " + MINIMUM_REMAINING);
+		}
+		if (memoryBudget < segmentSize) throw new IllegalArgumentException("memoryBudget must be at least segmentSize");
+		return ByteBuffer.allocateDirect(segmentSize);
+	}
+	
+	/**
+	 * Writes the spill segment to the file; or, when a segment in memory is full,
+	 * returns a new segment, or the spill segment once the memory budget is reached.
+	 * 
+	 * @param buffer the current segment
+	 * @return the segment to continue encoding into
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	protected ByteBuffer drain(final ByteBuffer buffer) throws IOException {
+		if (buffer == spillSegment) {
+			buffer.flip();
+			while (buffer.hasRemaining()) file.write(buffer);
+			buffer.clear();
+			return buffer;
+		}
+		if (isClosed() || buffer.remaining() >= MINIMUM_REMAINING) return buffer;
+		if ((long) segments.size() * segmentSize + segmentSize <= memoryBudget) {
+			final ByteBuffer segment = ByteBuffer.allocateDirect(segmentSize);
+			segments.add(segment);
+			return segment;
+		}
+		final Path path = directory == null ? Files.createTempFile("scriptorium", ".arena")
+				: Files.createTempFile(directory, "scriptorium", ".arena");
+		try {
+			file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		} catch (IOException | RuntimeException e) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		spillSegment = ByteBuffer.allocateDirect(segmentSize);
+		return spillSegment;
+	}
+	
+	/**
+	 * Returns whether output has exceeded the memory budget and been written to a
+	 * temporary file.
+	 * 
+	 * @return true if this sink has spilled to a file
+	 */
+	public boolean isSpilled() {
+		return file != null;
+	}
+	
+	/**
+	 * Returns the number of bytes encoded, once this sink is closed.
+	 * 
+	 * @return the number of bytes that {@link #transferTo(WritableByteChannel)} writes
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if this sink is open or has been discarded
+	 */
+	public long size() throws IOException {
+		ensureTransferable();
+		long size = file == null ? 0 : file.size();
+		for (ByteBuffer segment : segments) {
+			size += segment.position();
+		}
+		return size;
+	}
+	
+	/**
+	 * Writes the encoded output to the provided channel, once this sink is closed.
+	 * 
+	 * <p>
+	 * The channel must be in blocking mode, so that each write makes progress. The
+	 * channel is not closed. This method may be called more than once, e.g. to retry a
+	 * destination that failed.
+	 * 
+	 * @param channel the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if the channel is a {@link SelectableChannel} in
+	 * non-blocking mode
+	 * @throws IllegalStateException if this sink is open or has been discarded
+	 */
+	public long transferTo(final WritableByteChannel channel) throws IOException {
+		if (channel == null) throw new NullPointerException("channel");
+		if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+			throw new IllegalArgumentException("channel must be in blocking mode");
+		}
+		ensureTransferable();
+		long written = 0;
+		for (ByteBuffer segment : segments) {
+			final ByteBuffer bytes = segment.duplicate();
+			bytes.flip();
+			while (bytes.hasRemaining()) written += channel.write(bytes);
+		}
+		if (file != null) {
+			final long size = file.size();
+			long position = 0;
+			while (position < size) {
+				position += file.transferTo(position, size - position, channel);
+			}
+			written += size;
+		}
+		return written;
+	}
+	
+	/**
+	 * Closes this sink if it is open, deletes its temporary file, and releases its
+	 * segments. Calling this method more than once has no effect.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void discard() throws IOException {
+		if (discarded) return;
+		discarded = true;
+		try {
+			close();
+		} finally {
+			segments.clear();
+			spillSegment = null;
+			if (file != null) file.close();
+		}
+	}
+	
+	private void ensureTransferable() {
+		if (discarded) throw new IllegalStateException("Sink has been discarded");
+		if (!isClosed()) throw new IllegalStateException("Sink is open");
+	}
+	
+}
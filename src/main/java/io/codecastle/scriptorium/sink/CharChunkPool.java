@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, thread-safe pool of fixed-size {@code char[]} chunks.
+ * 
+ * <p>
+ * Pooled chunks are held in a fixed number of slots divided into stripes. Each
+ * thread acquires and releases chunks through the stripe selected by its id, so
+ * threads rarely contend for the same slots. A {@link ChunkedCharBuffer} uses the
+ * stripe of the thread that constructed it, so chunks are returned to the stripe they
+ * came from even when the buffer is cleared by another thread. Acquiring a chunk when its stripe is
+ * empty allocates a new chunk, and releasing a chunk when its stripe is full discards
+ * it, so the pool never holds more than its capacity and never blocks.
+ * 
+ * @author Doug Valenta
+ * @see ChunkedCharBuffer
+ */
+public final class CharChunkPool {
+	
+	/**
+	 * The chunk size, in characters, of the {@link #shared()} pool.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+	
+	/**
+	 * The capacity, in chunks, of the {@link #shared()} pool.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private static final CharChunkPool SHARED = new CharChunkPool(DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY);
+	
+	/**
+	 * Returns a process-wide pool of {@value #DEFAULT_CHUNK_SIZE}-character chunks
+	 * that holds at most {@value #DEFAULT_CAPACITY} chunks.
+	 * 
+	 * @return the shared pool
+	 */
+	public static CharChunkPool shared() {
+		return SHARED;
+	}
+	
+	private final int chunkSize;
+	private final AtomicReferenceArray<char[]> slots;
+	private final int stripeMask;
+	private final int stripeSize;
+	
+	/**
+	 * Constructs a new, empty pool.
+	 * 
+	 * @param chunkSize the length of the chunks in this pool
+	 * @param capacity the maximum number of chunks this pool holds; zero disables
+	 * pooling
+	 * @throws IllegalArgumentException if {@code chunkSize} is not positive or
+	 * {@code capacity} is negative
+	 */
+	public CharChunkPool(final int chunkSize, final int capacity) {
+		if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+		if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+		int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+		while (stripes > 1 && stripes > capacity) stripes >>= 1;
+		this.chunkSize = chunkSize;
+		this.stripeMask = stripes - 1;
+		this.stripeSize = capacity / stripes;
+		this.slots = new AtomicReferenceArray<>(stripeSize * stripes);
+	}
+	
+	/**
+	 * Returns the length of the chunks in this pool.
+	 * 
+	 * @return the chunk size
+	 */
+	public int chunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * Returns the maximum number of chunks this pool holds.
+	 * 
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return slots.length();
+	}
+	
+	/**
+	 * Removes a chunk from this pool and returns it, or allocates a new chunk if
+	 * none are available to the calling thread.
+	 * 
+	 * <p>
+	 * The contents of the returned chunk are undefined.
+	 * 
+	 * @return a chunk of {@link #chunkSize()} characters
+	 */
+	public char[] acquire() {
+		return acquire(stripe());
+	}
+	
+	/**
+	 * Removes a chunk from the provided stripe and returns it, or allocates a new
+	 * chunk if the stripe is empty.
+	 */
+	char[] acquire(final int stripe) {
+		final int base = stripe * stripeSize;
+		for (int index = base + stripeSize - 1; index >= base; index--) {
+			final char[] chunk = slots.get(index);
+			if (chunk != null && slots.compareAndSet(index, chunk, null)) return chunk;
+		}
+		return new char[chunkSize];
+	}
+	
+	/**
+	 * Returns a chunk to this pool, or discards it if the pool is full.
+	 * 
+	 * <p>
+	 * The caller must not use the chunk after this method is called.
+	 * 
+	 * @param chunk a chunk previously returned by {@link #acquire()}
+	 * @throws IllegalArgumentException if the length of the chunk is not {@link #chunkSize()}
+	 */
+	public void release(final char[] chunk) {
+		release(chunk, stripe());
+	}
+	
+	/**
+	 * Returns a chunk to the provided stripe, or discards it if the stripe is full.
+	 */
+	void release(final char[] chunk, final int stripe) {
+		if (chunk.length != chunkSize) {
+			throw new IllegalArgumentException("chunk length " + chunk.length + " is not " + chunkSize);
+		}
+		final int base = stripe * stripeSize;
+		for (int index = base; index < base + stripeSize; index++) {
+			if (slots.get(index) == null && slots.compareAndSet(index, null, chunk)) return;
+		}
+	}
+	
+	/**
+	 * Returns the stripe of the calling thread.
+	 */
+	int stripe() {
+		final long id = Thread.currentThread().getId();
+		return (int) (id ^ id >>> 32) & stripeMask;
+	}
+	
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A character buffer made of fixed-size chunks acquired from a {@link CharChunkPool}.
+ * 
+ * <p>
+ * Unlike a {@link StringBuilder}, appending to this buffer never copies characters
+ * that were already appended: when the last chunk is full, another chunk is added.
+ * The buffered characters are written to a {@link Writer} directly from the chunks,
+ * and {@link #clear()} returns the chunks to the pool.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class ChunkedCharBuffer implements FluentAppendable<ChunkedCharBuffer>, CharSequence, Closeable {
+	
+	private static final char[][] NO_CHUNKS = new char[0][];
+	private static final char[] NO_CHARACTERS = new char[0];
+	
+	/**
+	 * A view of a range of a buffer's characters that spans more than one chunk.
+	 */
+	private final class View implements CharSequence {
+		
+		private final int start;
+		private final int end;
+		
+		View(final int start, final int end) {
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		public int length() {
+			return end - start;
+		}
+		
+		@Override
+		public char charAt(final int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("index " + index + ", length " + (end - start));
+			}
+			final int offset = start + index;
+			return chunks[offset / chunkSize][offset % chunkSize];
+		}
+		
+		@Override
+		public CharSequence subSequence(final int from, final int to) {
+			if (from < 0 || from > to || to > end - start) {
+				throw new IndexOutOfBoundsException("start " + from + ", end " + to + ", length " + (end - start));
+			}
+			return view(start + from, start + to);
+		}
+		
+		@Override
+		public String toString() {
+			final char[] characters = new char[end - start];
+			getChars(start, end, characters, 0);
+			return new String(characters);
+		}
+		
+	}
+	
+	private final CharChunkPool pool;
+	private final int chunkSize;
+	private final int stripe;
+	private char[][] chunks = NO_CHUNKS;
+	private int chunkCount;
+	private int position;
+	private int length;
+	
+	/**
+	 * Constructs a new, empty buffer that uses the {@link CharChunkPool#shared()} pool.
+	 */
+	public ChunkedCharBuffer() {
+		this(CharChunkPool.shared());
+	}
+	
+	/**
+	 * Constructs a new, empty buffer that uses the provided pool.
+	 * 
+	 * <p>
+	 * Chunks are acquired from and released to the pool's stripe for the calling
+	 * thread, even if the buffer is later used or cleared by another thread.
+	 * 
+	 * @param pool the pool to acquire chunks from and release chunks to
+	 */
+	public ChunkedCharBuffer(final CharChunkPool pool) {
+		this.pool = pool;
+		this.chunkSize = pool.chunkSize();
+		this.stripe = pool.stripe();
+		this.position = chunkSize;
+	}
+	
+	/**
+	 * Constructs a new, empty buffer that uses the provided pool, with room for the
+	 * chunks of the provided number of characters.
+	 * 
+	 * <p>
+	 * Chunks are still acquired as characters are appended; the capacity only sizes
+	 * the array that holds them, so that it does not grow while the expected number
+	 * of characters is appended, e.g. when the capacity is advised by a
+	 * {@link SizeAdvisor}.
+	 * 
+	 * @param pool the pool to acquire chunks from and release chunks to
+	 * @param capacity the expected number of characters
+	 * @throws IllegalArgumentException if {@code capacity} is negative
+	 */
+	public ChunkedCharBuffer(final CharChunkPool pool, final int capacity) {
+		this(pool);
+		if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+		final int count = (int) (((long) capacity + chunkSize - 1) / chunkSize);
+		if (count > 0) chunks = new char[count][];
+	}
+	
+	@Override
+	public ChunkedCharBuffer append(final char character) {
+		if (position == chunkSize) addChunk();
+		chunks[chunkCount - 1][position++] = character;
+		length++;
+		return this;
+	}
+	
+	@Override
+	public ChunkedCharBuffer append(final CharSequence sequence) {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		return append(nonNull, 0, nonNull.length());
+	}
+	
+	@Override
+	public ChunkedCharBuffer append(final CharSequence sequence, final int start, final int end) {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		if (start < 0 || start > end || end > nonNull.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + nonNull.length());
+		}
+		int index = start;
+		while (index < end) {
+			if (position == chunkSize) addChunk();
+			final char[] chunk = chunks[chunkCount - 1];
+			final int count = Math.min(end - index, chunkSize - position);
+			if (nonNull instanceof String) {
+				((String) nonNull).getChars(index, index + count, chunk, position);
+			} else if (nonNull instanceof StringBuilder) {
+				((StringBuilder) nonNull).getChars(index, index + count, chunk, position);
+			} else {
+				for (int offset = 0; offset < count; offset++) {
+					chunk[position + offset] = nonNull.charAt(index + offset);
+				}
+			}
+			index += count;
+			position += count;
+			length += count;
+		}
+		return this;
+	}
+	
+	/**
+	 * Appends a range of characters from the provided array to this buffer.
+	 * 
+	 * @param characters the characters to append
+	 * @param offset the index of the first character to append
+	 * @param count the number of characters to append
+	 * @return this object
+	 * @throws IndexOutOfBoundsException if the range is not within the array
+	 */
+	public ChunkedCharBuffer append(final char[] characters, final int offset, final int count) {
+		if (offset < 0 || count < 0 || offset + count > characters.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", count " + count + ", length " + characters.length);
+		}
+		int index = offset;
+		final int end = offset + count;
+		while (index < end) {
+			if (position == chunkSize) addChunk();
+			final int copied = Math.min(end - index, chunkSize - position);
+			System.arraycopy(characters, index, chunks[chunkCount - 1], position, copied);
+			index += copied;
+			position += copied;
+			length += copied;
+		}
+		return this;
+	}
+	
+	@Override
+	public int length() {
+		return length;
+	}
+	
+	@Override
+	public char charAt(final int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		}
+		return chunks[index / chunkSize][index % chunkSize];
+	}
+	
+	/**
+	 * Returns a new {@link String} containing a range of the characters in this buffer.
+	 * 
+	 * @param start the index of the first character in the range
+	 * @param end the index after the last character in the range
+	 * @return a new string
+	 * @throws IndexOutOfBoundsException if the range is not within this buffer
+	 */
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		if (start < 0 || start > end || end > length) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		}
+		final char[] characters = new char[end - start];
+		getChars(start, end, characters, 0);
+		return new String(characters);
+	}
+	
+	/**
+	 * Returns a view of a range of the characters in this buffer, without
+	 * copying them.
+	 * 
+	 * <p>
+	 * A range within one chunk is returned as a {@link CharBuffer} that wraps the
+	 * chunk. The view reflects the chunks of this buffer, so it must not be used after
+	 * this buffer is cleared.
+	 * 
+	 * @param start the index of the first character in the range
+	 * @param end the index after the last character in the range
+	 * @return a view of the range
+	 * @throws IndexOutOfBoundsException if the range is not within this buffer
+	 */
+	public CharSequence view(final int start, final int end) {
+		if (start < 0 || start > end || end > length) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		}
+		if (start == end) return CharBuffer.wrap(NO_CHARACTERS);
+		final int chunkOffset = start % chunkSize;
+		if (chunkOffset + end - start <= chunkSize) return CharBuffer.wrap(chunks[start / chunkSize], chunkOffset, end - start);
+		return new View(start, end);
+	}
+	
+	/**
+	 * Copies a range of the characters in this buffer into the provided array.
+	 * 
+	 * @param start the index of the first character to copy
+	 * @param end the index after the last character to copy
+	 * @param destination the array to copy characters into
+	 * @param offset the index in the destination array to copy the first character to
+	 * @throws IndexOutOfBoundsException if the range is not within this buffer, or the
+	 * characters do not fit in the destination array
+	 */
+	public void getChars(final int start, final int end, final char[] destination, final int offset) {
+		if (start < 0 || start > end || end > length) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		}
+		int index = start;
+		int target = offset;
+		while (index < end) {
+			final int chunkOffset = index % chunkSize;
+			final int count = Math.min(end - index, chunkSize - chunkOffset);
+			System.arraycopy(chunks[index / chunkSize], chunkOffset, destination, target, count);
+			index += count;
+			target += count;
+		}
+	}
+	
+	/**
+	 * Writes the characters in this buffer to the provided {@link Writer} directly
+	 * from the buffer's chunks, without copying them.
+	 * 
+	 * @param writer the writer to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void writeTo(final Writer writer) throws IOException {
+		for (int index = 0; index < chunkCount; index++) {
+			writer.write(chunks[index], 0, chunkLength(index));
+		}
+	}
+	
+	/**
+	 * Appends the characters in this buffer to the provided {@link Appendable}.
+	 * 
+	 * <p>
+	 * If the appendable is a {@link Writer}, this method is equivalent to
+	 * {@link #writeTo(Writer)}. Otherwise each chunk is appended as a {@link CharBuffer}
+	 * view of the chunk, so appending to an {@link AbstractUtf8Sink} encodes directly
+	 * from the chunks to bytes for a channel or stream.
+	 * 
+	 * @param appendable the appendable to append to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void writeTo(final Appendable appendable) throws IOException {
+		if (appendable instanceof Writer) {
+			writeTo((Writer) appendable);
+			return;
+		}
+		for (int index = 0; index < chunkCount; index++) {
+			final int chunkLength = chunkLength(index);
+			appendable.append(CharBuffer.wrap(chunks[index], 0, chunkLength), 0, chunkLength);
+		}
+	}
+	
+	/**
+	 * Writes the characters in this buffer to the provided {@link Appendable} as with
+	 * {@link #writeTo(Appendable)}, then clears this buffer.
+	 * 
+	 * <p>
+	 * This buffer is cleared even if an I/O error occurs.
+	 * 
+	 * @param appendable the appendable to append to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void drainTo(final Appendable appendable) throws IOException {
+		try {
+			writeTo(appendable);
+		} finally {
+			clear();
+		}
+	}
+	
+	/**
+	 * Removes all characters from this buffer and returns its chunks to the pool.
+	 */
+	public void clear() {
+		for (int index = 0; index < chunkCount; index++) {
+			pool.release(chunks[index], stripe);
+			chunks[index] = null;
+		}
+		chunkCount = 0;
+		position = chunkSize;
+		length = 0;
+	}
+	
+	/**
+	 * Equivalent to {@link #clear()}; this buffer may continue to be used after it is
+	 * closed.
+	 */
+	@Override
+	public void close() {
+		clear();
+	}
+	
+	@Override
+	public String toString() {
+		final char[] characters = new char[length];
+		getChars(0, length, characters, 0);
+		return new String(characters);
+	}
+	
+	private int chunkLength(final int index) {
+		return index == chunkCount - 1 ? position : chunkSize;
+	}
+	
+	private void addChunk() {
+		if (chunkCount == chunks.length) {
+			chunks = Arrays.copyOf(chunks, Math.max(8, chunkCount * 2));
+		}
+		chunks[chunkCount++] = pool.acquire(stripe);
+		position = 0;
+	}
+	
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Passes characters through to a destination, except that a {@link Placeholder} may
+ * be reserved in the output and filled later, e.g. with a count or a total length
+ * that is only known once the content after it has been written.
+ * 
+ * <p>
+ * Characters appended while no placeholder is unfilled are appended directly to the
+ * destination. Otherwise, they are held in segments of a {@link ChunkedCharBuffer},
+ * one per placeholder. When the earliest unfilled placeholder is filled, its value
+ * and every held segment and filled placeholder up to the next unfilled placeholder
+ * are appended to the destination, and the segments' chunks are returned to the
+ * pool. Only the output after the earliest unfilled placeholder is held back.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class DeferredSink implements FluentAppendable<DeferredSink>, Flushable, Closeable {
+	
+	/**
+	 * A reserved position in the output of a {@link DeferredSink}, which must be
+	 * filled before the sink is closed.
+	 */
+	public final class Placeholder {
+		
+		private String value;
+		
+		private Placeholder() {
+		}
+		
+		/**
+		 * Outputs the provided value at this placeholder's position, and passes any
+		 * output no longer held back to the destination.
+		 * 
+		 * @param value the value of this placeholder
+		 * @throws IOException if an I/O error occurs
+		 * @throws IllegalStateException if this placeholder has already been filled
+		 */
+		public void fill(final CharSequence value) throws IOException {
+			if (this.value != null) throw new IllegalStateException("Placeholder is already filled");
+			ensureOpen();
+			this.value = String.valueOf(value);
+			if (held.peekFirst() == this) release();
+		}
+		
+		/**
+		 * Returns whether this placeholder has been filled.
+		 * 
+		 * @return true if {@link #fill(CharSequence)} has been called
+		 */
+		public boolean isFilled() {
+			return value != null;
+		}
+		
+	}
+	
+	private final Appendable destination;
+	private final CharChunkPool pool;
+	private final ArrayDeque<Object> held = new ArrayDeque<>();
+	private ChunkedCharBuffer tail;
+	private boolean closed;
+	
+	/**
+	 * Constructs a new sink that appends to the provided destination, and holds
+	 * output in chunks from the {@link CharChunkPool#shared()} pool.
+	 * 
+	 * @param destination the appendable to append to
+	 */
+	public DeferredSink(final Appendable destination) {
+		this(destination, CharChunkPool.shared());
+	}
+	
+	/**
+	 * Constructs a new sink that appends to the provided destination, and holds
+	 * output in chunks from the provided pool.
+	 * 
+	 * @param destination the appendable to append to
+	 * @param pool the pool to acquire chunks from and release chunks to
+	 */
+	public DeferredSink(final Appendable destination, final CharChunkPool pool) {
+		if (destination == null) throw new NullPointerException("destination");
+		if (pool == null) throw new NullPointerException("pool");
+		this.destination = destination;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Reserves a placeholder at the current position in the output.
+	 * 
+	 * @return a new, unfilled placeholder
+	 * @throws IOException if this sink is closed
+	 */
+	public Placeholder reserve() throws IOException {
+		ensureOpen();
+		final Placeholder placeholder = new Placeholder();
+		held.addLast(placeholder);
+		tail = null;
+		return placeholder;
+	}
+	
+	/**
+	 * Returns the number of characters held back until a placeholder is filled.
+	 * 
+	 * @return the length of the held segments and filled placeholders
+	 */
+	public long heldLength() {
+		long length = 0;
+		for (Object item : held) {
+			if (item instanceof ChunkedCharBuffer) {
+				length += ((ChunkedCharBuffer) item).length();
+			} else if (((Placeholder) item).value != null) {
+				length += ((Placeholder) item).value.length();
+			}
+		}
+		return length;
+	}
+	
+	@Override
+	public DeferredSink append(final char character) throws IOException {
+		ensureOpen();
+		if (held.isEmpty()) {
+			destination.append(character);
+		} else {
+			tail().append(character);
+		}
+		return this;
+	}
+	
+	@Override
+	public DeferredSink append(final CharSequence sequence) throws IOException {
+		final CharSequence nonNull = sequence == null ? "null" : sequence;
+		return append(nonNull, 0, nonNull.length());
+	}
+	
+	@Override
+	public DeferredSink append(final CharSequence sequence, final int start, final int end) throws IOException {
+		ensureOpen();
+		if (held.isEmpty()) {
+			destination.append(sequence, start, end);
+		} else {
+			tail().append(sequence, start, end);
+		}
+		return this;
+	}
+	
+	/**
+	 * Flushes the destination if it is {@link Flushable}. Output held back by an
+	 * unfilled placeholder is not flushed.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		if (destination instanceof Flushable) ((Flushable) destination).flush();
+	}
+	
+	/**
+	 * Closes the destination if it is {@link Closeable}. Subsequent calls to this
+	 * method have no effect.
+	 * 
+	 * <p>
+	 * If a placeholder has not been filled, the output held back is discarded and an
+	 * exception is thrown after the destination is closed.
+	 * 
+	 * @throws IOException if an I/O error occurs, or a placeholder has not been filled
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		final boolean unfilled = !held.isEmpty();
+		try {
+			for (Object item : held) {
+				if (item instanceof ChunkedCharBuffer) ((ChunkedCharBuffer) item).clear();
+			}
+			held.clear();
+			tail = null;
+		} finally {
+			if (destination instanceof Closeable) ((Closeable) destination).close();
+		}
+		if (unfilled) throw new IOException("Sink was closed with an unfilled placeholder");
+	}
+	
+	private void ensureOpen() throws IOException {
+		if (closed) throw new IOException("Sink is closed");
+	}
+	
+	private ChunkedCharBuffer tail() {
+		if (tail == null) {
+			tail = new ChunkedCharBuffer(pool);
+			held.addLast(tail);
+		}
+		return tail;
+	}
+	
+	/**
+	 * Appends held items to the destination up to the next unfilled placeholder.
+	 */
+	private void release() throws IOException {
+		Object item;
+		while ((item = held.peekFirst()) != null) {
+			if (item instanceof ChunkedCharBuffer) {
+				held.removeFirst();
+				if (item == tail) tail = null;
+				((ChunkedCharBuffer) item).drainTo(destination);
+			} else {
+				final String value = ((Placeholder) item).value;
+				if (value == null) return;
+				held.removeFirst();
+				destination.append(value);
+			}
+		}
+	}
+	
+}
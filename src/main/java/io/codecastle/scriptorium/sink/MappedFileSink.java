@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Encodes characters as UTF-8 directly into memory-mapped windows of a file.
+ * 
+ * <p>
+ * Output is written into a {@link MappedByteBuffer} covering one window of the
+ * file. When the window is full, the next window is mapped immediately after the
+ * bytes written so far. No output is buffered on the heap and no {@code write}
+ * system calls are made; the operating system writes the mapped pages back to the
+ * file. Because mapping a window extends the file, {@link #close()} truncates the
+ * file to the number of bytes actually written before closing the channel.
+ * 
+ * <p>
+ * Windows that have been filled are unmapped when they are garbage collected. On
+ * platforms that do not allow a file with mapped regions to be truncated, the file
+ * may keep the length of the last window if that window has not been collected.
+ * 
+ * @author Doug Valenta
+ */
+public final class MappedFileSink extends AbstractUtf8Sink<MappedFileSink> {
+	
+	/**
+	 * The default size, in bytes, of each mapped window.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+	
+	/**
+	 * Creates or truncates the file at the provided path, and returns a new sink that
+	 * writes to it using windows of the default size.
+	 * 
+	 * @param path the path of the file to write
+	 * @return a new sink
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static MappedFileSink open(final Path path) throws IOException {
+		return open(path, DEFAULT_WINDOW_SIZE);
+	}
+	
+	/**
+	 * Creates or truncates the file at the provided path, and returns a new sink that
+	 * writes to it using windows of the provided size.
+	 * 
+	 * @param path the path of the file to write
+	 * @param windowSize the size, in bytes, of each mapped window; at least four
+	 * @return a new sink
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if {@code windowSize} is less than four
+	 */
+	public static MappedFileSink open(final Path path, final int windowSize) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new MappedFileSink(channel, windowSize);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private final FileChannel channel;
+	private final int windowSize;
+	private long windowStart;
+	private MappedByteBuffer window;
+	
+	/**
+	 * Constructs a new sink that writes to the provided channel, starting at the
+	 * channel's current position, using windows of the provided size.
+	 * 
+	 * <p>
+	 * The channel must be open for reading and writing. Closing the sink closes the
+	 * channel.
+	 * 
+	 * @param channel the channel of the file to write
+	 * @param windowSize the size, in bytes, of each mapped window; at least four
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if {@code windowSize} is less than four
+	 */
+	public MappedFileSink(final FileChannel channel, final int windowSize) throws IOException {
+		super(map(channel, channel.position(), windowSize));
+		this.channel = channel;
+		this.windowSize = windowSize;
+		this.windowStart = channel.position();
+	}
+	
+	private static MappedByteBuffer map(final FileChannel channel, final long position, final int windowSize) throws IOException {
+		if (windowSize < MINIMUM_REMAINING) {
+			throw new IllegalArgumentException("windowSize must be at least " + MINIMUM_REMAINING);
+		}
+		return channel.map(FileChannel.MapMode.READ_WRITE, position, windowSize);
+	}
+	
+	/**
+	 * Maps the next window when the current window is full; otherwise, the bytes
+	 * written are already in the mapped file, so the current window is returned.
+	 * 
+	 * @param buffer the current window
+	 * @return the window to continue encoding into
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	protected ByteBuffer drain(final ByteBuffer buffer) throws IOException {
+		window = (MappedByteBuffer) buffer;
+		if (isClosed()) {
+			windowStart += buffer.position();
+			return buffer;
+		}
+		if (buffer.remaining() >= MINIMUM_REMAINING) return buffer;
+		windowStart += buffer.position();
+		window = map(channel, windowStart, windowSize);
+		return window;
+	}
+	
+	/**
+	 * Forces the bytes written so far to be written to the storage device that
+	 * contains the file.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void force() throws IOException {
+		flush();
+		window.force();
+		channel.force(false);
+	}
+	
+	@Override
+	protected void onClose() throws IOException {
+		try {
+			channel.truncate(windowStart);
+		} finally {
+			channel.close();
+		}
+	}
+	
+}
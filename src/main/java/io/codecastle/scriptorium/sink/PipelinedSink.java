@@ -0,0 +1,350 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link FluentAppendable} that copies characters into a ring buffer, from which a
+ * dedicated writer thread appends them to a destination.
+ * 
+ * <p>
+ * The thread that appends to a sink only copies characters, so encoding and blocking
+ * I/O in the destination, such as a {@link Utf8Sink}, happen on the writer thread.
+ * The ring buffer is lock-free with a single producer and a single consumer; the
+ * producer blocks only while the buffer is full.
+ * 
+ * <p>
+ * {@link #flush()} waits until every character appended so far has been appended to
+ * the destination, and flushes the destination if it is {@link Flushable}.
+ * {@link #close()} waits until every character has been appended to the destination,
+ * then flushes and closes the destination. Closing the sink from the root
+ * {@link io.codecastle.scriptorium.FluentNode} therefore completes the document. If
+ * the writer thread fails, the next call to any method of the sink throws an
+ * {@link IOException} caused by the failure, and characters not yet written are
+ * discarded.
+ * 
+ * <p>
+ * Instances of this class may be used by only one thread at a time, but that thread
+ * need not be the same for every call.
+ * 
+ * @author Doug Valenta
+ */
+public final class PipelinedSink implements FluentAppendable<PipelinedSink>, Flushable, Closeable {
+	
+	/**
+	 * The default capacity, in characters, of a sink's ring buffer.
+	 */
+	public static final int DEFAULT_CAPACITY = 65536;
+	
+	/**
+	 * The number of times the writer thread checks for characters before it parks.
+	 */
+	private static final int SPINS = 64;
+	
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	private final char[] ring;
+	private final int mask;
+	private final Appendable destination;
+	private final Thread writer;
+	private final CharBuffer view;
+	
+	/**
+	 * The number of characters appended by the producer; written only by the producer.
+	 */
+	private volatile long tail;
+	
+	/**
+	 * The number of characters appended to the destination; written only by the writer
+	 * thread.
+	 */
+	private volatile long head;
+	
+	private volatile long flushRequested;
+	private volatile long flushed;
+	private volatile boolean closed;
+	private volatile boolean finished;
+	private volatile Throwable failure;
+	private volatile boolean writerWaiting;
+	private volatile boolean producerWaiting;
+	private volatile Thread producer;
+	
+	/**
+	 * The producer's last reading of {@link #head}.
+	 */
+	private long knownHead;
+	
+	/**
+	 * Constructs a new sink that appends to the provided destination from a new
+	 * daemon thread, with a ring buffer of the default capacity.
+	 * 
+	 * @param destination the appendable to append to
+	 */
+	public PipelinedSink(final Appendable destination) {
+		this(destination, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new sink that appends to the provided destination from a new
+	 * daemon thread, with a ring buffer of at least the provided capacity.
+	 * 
+	 * @param destination the appendable to append to
+	 * @param capacity the minimum capacity of the ring buffer in characters; at least one
+	 * @throws IllegalArgumentException if {@code capacity} is less than one, or greater
+	 * than 2<sup>30</sup>
+	 */
+	public PipelinedSink(final Appendable destination, final int capacity) {
+		this(destination, capacity, runnable -> {
+			final Thread thread = new Thread(runnable, "scriptorium-pipelined-sink-" + THREAD_NUMBER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Constructs a new sink that appends to the provided destination from a thread
+	 * created by the provided factory, with a ring buffer of at least the provided
+	 * capacity.
+	 * 
+	 * @param destination the appendable to append to
+	 * @param capacity the minimum capacity of the ring buffer in characters; at least one
+	 * @param threadFactory the factory to create the writer thread with
+	 * @throws IllegalArgumentException if {@code capacity} is less than one, or greater
+	 * than 2<sup>30</sup>
+	 */
+	public PipelinedSink(final Appendable destination, final int capacity, final ThreadFactory threadFactory) {
+		if (destination == null) throw new NullPointerException("destination");
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity must be between 1 and " + (1 << 30));
+		}
+		int size = 1;
+		while (size < capacity) size <<= 1;
+		this.ring = new char[size];
+		this.mask = ring.length - 1;
+		this.destination = destination;
+		this.view = CharBuffer.wrap(ring);
+		this.writer = threadFactory.newThread(this::write);
+		writer.start();
+	}
+	
+	/**
+	 * Returns the capacity of this sink's ring buffer in characters.
+	 * 
+	 * @return the capacity of the ring buffer
+	 */
+	public int capacity() {
+		return ring.length;
+	}
+	
+	@Override
+	public PipelinedSink append(final char character) throws IOException {
+		ensureOpen();
+		final long position = tail;
+		if (position - knownHead == ring.length) awaitSpace(position);
+		ring[(int) position & mask] = character;
+		publish(position + 1);
+		return this;
+	}
+	
+	@Override
+	public PipelinedSink append(final CharSequence sequence) throws IOException {
+		final CharSequence characters = sequence == null ? "null" : sequence;
+		return append(characters, 0, characters.length());
+	}
+	
+	@Override
+	public PipelinedSink append(final CharSequence sequence, final int start, final int end) throws IOException {
+		final CharSequence characters = sequence == null ? "null" : sequence;
+		if (start < 0 || start > end || end > characters.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + characters.length());
+		}
+		ensureOpen();
+		long position = tail;
+		int index = start;
+		while (index < end) {
+			if (position - knownHead == ring.length) awaitSpace(position);
+			final int offset = (int) position & mask;
+			final int count = (int) Math.min(end - index, Math.min(ring.length - (position - knownHead), ring.length - offset));
+			copy(characters, index, index + count, offset);
+			index += count;
+			position += count;
+			publish(position);
+		}
+		return this;
+	}
+	
+	private void copy(final CharSequence sequence, final int start, final int end, final int offset) {
+		if (sequence instanceof String) {
+			((String) sequence).getChars(start, end, ring, offset);
+		} else if (sequence instanceof StringBuilder) {
+			((StringBuilder) sequence).getChars(start, end, ring, offset);
+		} else {
+			for (int index = start, target = offset; index < end; index++, target++) {
+				ring[target] = sequence.charAt(index);
+			}
+		}
+	}
+	
+	private void publish(final long position) {
+		tail = position;
+		if (writerWaiting) LockSupport.unpark(writer);
+	}
+	
+	private void awaitSpace(final long position) throws IOException {
+		knownHead = head;
+		if (position - knownHead < ring.length) return;
+		producer = Thread.currentThread();
+		producerWaiting = true;
+		try {
+			while (position - (knownHead = head) == ring.length && !finished) {
+				LockSupport.park(this);
+			}
+		} finally {
+			producerWaiting = false;
+		}
+		ensureOpen();
+	}
+	
+	/**
+	 * Waits until every character appended so far has been appended to the
+	 * destination, then flushes the destination if it is {@link Flushable}.
+	 * 
+	 * @throws IOException if the writer thread fails, or if this sink is closed
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		final long position = tail;
+		flushRequested = position;
+		if (writerWaiting) LockSupport.unpark(writer);
+		if (flushed < position) {
+			producer = Thread.currentThread();
+			producerWaiting = true;
+			try {
+				while (flushed < position && !finished) {
+					LockSupport.park(this);
+				}
+			} finally {
+				producerWaiting = false;
+			}
+		}
+		ensureOpen();
+	}
+	
+	/**
+	 * Waits until every character has been appended to the destination, then flushes
+	 * and closes the destination if it is {@link Closeable}. Calling this method again
+	 * has no effect, unless the writer thread failed, in which case the failure is
+	 * reported again.
+	 * 
+	 * @throws IOException if the writer thread fails
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		LockSupport.unpark(writer);
+		boolean interrupted = false;
+		while (writer.isAlive()) {
+			try {
+				writer.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+		rethrowFailure();
+	}
+	
+	/**
+	 * Returns whether this sink has been closed.
+	 * 
+	 * @return true if {@link #close()} has been called, otherwise false
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	private void ensureOpen() throws IOException {
+		rethrowFailure();
+		if (closed) throw new IOException("Sink is closed");
+	}
+	
+	private void rethrowFailure() throws IOException {
+		final Throwable cause = failure;
+		if (cause instanceof InterruptedException) {
+			throw new InterruptedIOException("Writer thread was interrupted");
+		} else if (cause != null) {
+			throw new IOException("Writer thread failed", cause);
+		}
+	}
+	
+	private void write() {
+		try {
+			long position = head;
+			int spins = 0;
+			while (true) {
+				final boolean closing = closed;
+				final long end = tail;
+				if (position < end) {
+					position = drain(position, end);
+					spins = 0;
+				} else if (flushed < flushRequested) {
+					final long request = flushRequested;
+					if (request <= position) {
+						if (destination instanceof Flushable) ((Flushable) destination).flush();
+						flushed = request;
+						if (producerWaiting) LockSupport.unpark(producer);
+					}
+				} else if (closing) {
+					break;
+				} else if (spins < SPINS) {
+					spins++;
+					Thread.yield();
+				} else {
+					writerWaiting = true;
+					if (tail == position && flushed == flushRequested && !closed) LockSupport.park(this);
+					writerWaiting = false;
+					if (Thread.interrupted()) throw new InterruptedException();
+				}
+			}
+			if (destination instanceof Flushable) ((Flushable) destination).flush();
+			if (destination instanceof Closeable) ((Closeable) destination).close();
+		} catch (Throwable t) {
+			failure = t;
+		} finally {
+			finished = true;
+			final Thread waiting = producer;
+			if (waiting != null) LockSupport.unpark(waiting);
+		}
+	}
+	
+	private long drain(final long start, final long end) throws IOException {
+		long position = start;
+		while (position < end) {
+			final int offset = (int) position & mask;
+			final int count = (int) Math.min(end - position, ring.length - offset);
+			if (destination instanceof Writer) {
+				((Writer) destination).write(ring, offset, count);
+			} else {
+				destination.append(view, offset, offset + count);
+			}
+			position += count;
+			head = position;
+			if (producerWaiting) LockSupport.unpark(producer);
+		}
+		return position;
+	}
+	
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Learns the sizes of the documents rendered for each key, such as a template or a
+ * root node class, so that buffers for the next document can be allocated large
+ * enough that they rarely need to grow.
+ * 
+ * <p>
+ * Each key has a histogram of recorded sizes with buckets a quarter of a power of
+ * two wide, so an estimate is at most 25% larger than the sizes it covers. Counts
+ * are halved every {@value #DECAY_INTERVAL} records for a key, so the estimate
+ * follows changes in a template's output. The estimate is the upper bound of the
+ * bucket that contains the configured quantile of recorded sizes; it is recomputed
+ * as sizes are recorded, so {@link #estimate(Object)} is a lock-free map lookup and
+ * a volatile read.
+ * 
+ * <p>
+ * Keys are retained for the life of the advisor, so the number of keys should be
+ * bounded, e.g. by the number of templates.
+ * 
+ * <p>
+ * Instances of this class are thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class SizeAdvisor {
+	
+	/**
+	 * The default quantile of recorded sizes that estimates cover.
+	 */
+	public static final double DEFAULT_QUANTILE = 0.9;
+	
+	/**
+	 * The number of records for a key after which its counts are halved.
+	 */
+	public static final int DECAY_INTERVAL = 1024;
+	
+	private static final int EXACT_BUCKETS = 8;
+	private static final int BUCKETS = EXACT_BUCKETS + (31 - 3) * 4;
+	private static final int RECOMPUTE_INTERVAL = 16;
+	
+	/**
+	 * The decaying counts of recorded sizes for one key, and the estimate computed
+	 * from them.
+	 */
+	private static final class Histogram {
+		
+		final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		final AtomicLong records = new AtomicLong();
+		volatile int estimate;
+		
+	}
+	
+	private final double quantile;
+	private final int defaultSize;
+	private final ConcurrentMap<Object, Histogram> histograms = new ConcurrentHashMap<>();
+	
+	/**
+	 * Constructs a new advisor that estimates the default quantile of recorded sizes,
+	 * and advises the provided size for keys without records.
+	 * 
+	 * @param defaultSize the size to advise for keys without records
+	 * @throws IllegalArgumentException if {@code defaultSize} is negative
+	 */
+	public SizeAdvisor(final int defaultSize) {
+		this(DEFAULT_QUANTILE, defaultSize);
+	}
+	
+	/**
+	 * Constructs a new advisor that estimates the provided quantile of recorded sizes,
+	 * and advises the provided size for keys without records.
+	 * 
+	 * @param quantile the fraction of recorded sizes that estimates cover, greater
+	 * than zero and at most one
+	 * @param defaultSize the size to advise for keys without records
+	 * @throws IllegalArgumentException if {@code quantile} is not greater than zero and
+	 * at most one, or {@code defaultSize} is negative
+	 */
+	public SizeAdvisor(final double quantile, final int defaultSize) {
+		if (!(quantile > 0 && quantile <= 1)) throw new IllegalArgumentException("quantile must be greater than 0 and at most 1");
+		if (defaultSize < 0) throw new IllegalArgumentException("defaultSize must not be negative");
+		this.quantile = quantile;
+		this.defaultSize = defaultSize;
+	}
+	
+	/**
+	 * Returns the size to allocate for the next document with the provided key.
+	 * 
+	 * @param key the key of the document
+	 * @return the estimated size, or the default size if no size has been recorded
+	 * for the key
+	 */
+	public int estimate(final Object key) {
+		final Histogram histogram = histograms.get(key);
+		return histogram == null ? defaultSize : histogram.estimate;
+	}
+	
+	/**
+	 * Returns a new {@link StringBuilder} with the capacity estimated for the provided
+	 * key.
+	 * 
+	 * @param key the key of the document
+	 * @return a new, empty builder
+	 */
+	public StringBuilder newStringBuilder(final Object key) {
+		return new StringBuilder(estimate(key));
+	}
+	
+	/**
+	 * Returns a new {@link ChunkedCharBuffer} that uses the provided pool, with the
+	 * capacity estimated for the provided key.
+	 * 
+	 * @param key the key of the document
+	 * @param pool the pool the buffer acquires chunks from
+	 * @return a new, empty buffer
+	 */
+	public ChunkedCharBuffer newChunkedCharBuffer(final Object key, final CharChunkPool pool) {
+		return new ChunkedCharBuffer(pool, estimate(key));
+	}
+	
+	/**
+	 * Returns a new {@link ArenaSink} sized for the size estimated for the provided key,
+	 * which spills to a file in the provided directory. Sizes recorded for the key
+	 * should be in bytes, e.g. the {@link ArenaSink#size()} of previous documents.
+	 * 
+	 * @param key the key of the document
+	 * @param directory the directory to create the temporary file in, or null for the
+	 * default temporary-file directory
+	 * @return a new sink
+	 * @see ArenaSink#sized(long, Path)
+	 */
+	public ArenaSink newArenaSink(final Object key, final Path directory) {
+		return ArenaSink.sized(estimate(key), directory);
+	}
+	
+	/**
+	 * Records the size of a document with the provided key.
+	 * 
+	 * @param key the key of the document
+	 * @param size the size of the document, e.g. its length in characters
+	 * @throws NullPointerException if {@code key} is null
+	 * @throws IllegalArgumentException if {@code size} is negative
+	 */
+	public void record(final Object key, final int size) {
+		if (key == null) throw new NullPointerException("key");
+		if (size < 0) throw new IllegalArgumentException("size must not be negative");
+		final Histogram histogram = histograms.computeIfAbsent(key, unused -> new Histogram());
+		histogram.counts.incrementAndGet(bucket(size));
+		final long records = histogram.records.incrementAndGet();
+		if (records % DECAY_INTERVAL == 0) {
+			for (int index = 0; index < BUCKETS; index++) {
+				final long count = histogram.counts.get(index);
+				if (count > 0) histogram.counts.addAndGet(index, -(count >> 1));
+			}
+		}
+		if (records <= RECOMPUTE_INTERVAL || records % RECOMPUTE_INTERVAL == 0) {
+			histogram.estimate = estimate(histogram.counts);
+		}
+	}
+	
+	/**
+	 * Returns the current estimate for every key with recorded sizes, e.g. for
+	 * monitoring.
+	 * 
+	 * @return a new map of keys to their estimates
+	 */
+	public Map<Object, Integer> estimates() {
+		final Map<Object, Integer> estimates = new HashMap<>();
+		for (Map.Entry<Object, Histogram> entry : histograms.entrySet()) {
+			estimates.put(entry.getKey(), entry.getValue().estimate);
+		}
+		return estimates;
+	}
+	
+	private int estimate(final AtomicLongArray counts) {
+		long total = 0;
+		for (int index = 0; index < BUCKETS; index++) {
+			total += counts.get(index);
+		}
+		final long target = Math.max(1, (long) Math.ceil(total * quantile));
+		long cumulative = 0;
+		for (int index = 0; index < BUCKETS; index++) {
+			cumulative += counts.get(index);
+			if (cumulative >= target) return upperBound(index);
+		}
+		return upperBound(BUCKETS - 1);
+	}
+	
+	/**
+	 * Returns the bucket of the provided size: sizes below eight have a bucket each,
+	 * and each larger power of two is divided into four buckets.
+	 */
+	private static int bucket(final int size) {
+		if (size < EXACT_BUCKETS) return size;
+		final int exponent = 31 - Integer.numberOfLeadingZeros(size);
+		final int quarter = size >>> exponent - 2 & 3;
+		return EXACT_BUCKETS + (exponent - 3) * 4 + quarter;
+	}
+	
+	/**
+	 * Returns the largest size in the provided bucket.
+	 */
+	private static int upperBound(final int bucket) {
+		if (bucket < EXACT_BUCKETS) return bucket;
+		final int exponent = (bucket - EXACT_BUCKETS) / 4 + 3;
+		final int quarter = (bucket - EXACT_BUCKETS) % 4;
+		return (int) Math.min(Integer.MAX_VALUE, ((5L + quarter) << exponent - 2) - 1);
+	}
+	
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes characters as UTF-8 into a reusable buffer, and writes the buffer to an
+ * {@link OutputStream} or {@link WritableByteChannel} whenever it is full, when
+ * flushed, and when closed.
+ * 
+ * <p>
+ * This replaces an {@link java.io.OutputStreamWriter} and the buffering around it:
+ * characters are encoded once, straight into the bytes that are written.
+ * 
+ * <p>
+ * Closing a sink closes its destination.
+ * 
+ * @author Doug Valenta
+ */
+public final class Utf8Sink extends AbstractUtf8Sink<Utf8Sink> {
+	
+	/**
+	 * The default size, in bytes, of a sink's buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	
+	private final OutputStream stream;
+	private final WritableByteChannel channel;
+	
+	/**
+	 * Constructs a new sink that writes to the provided {@link OutputStream} with a
+	 * buffer of the default size.
+	 * 
+	 * @param stream the stream to write to
+	 */
+	public Utf8Sink(final OutputStream stream) {
+		this(stream, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Constructs a new sink that writes to the provided {@link OutputStream} with a
+	 * buffer of the provided size.
+	 * 
+	 * @param stream the stream to write to
+	 * @param bufferSize the size of the buffer in bytes; at least four
+	 * @throws IllegalArgumentException if {@code bufferSize} is less than four
+	 */
+	public Utf8Sink(final OutputStream stream, final int bufferSize) {
+		super(allocate(bufferSize, false));
+		if (stream == null) throw new NullPointerException("stream");
+		this.stream = stream;
+		this.channel = null;
+	}
+	
+	/**
+	 * Constructs a new sink that writes to the provided {@link WritableByteChannel}
+	 * with a buffer of the default size.
+	 * 
+	 * @param channel the channel to write to
+	 */
+	public Utf8Sink(final WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Constructs a new sink that writes to the provided {@link WritableByteChannel}
+	 * with a direct buffer of the provided size.
+	 * 
+	 * @param channel the channel to write to
+	 * @param bufferSize the size of the buffer in bytes; at least four
+	 * @throws IllegalArgumentException if {@code bufferSize} is less than four
+	 */
+	public Utf8Sink(final WritableByteChannel channel, final int bufferSize) {
+		super(allocate(bufferSize, true));
+		if (channel == null) throw new NullPointerException("channel");
+		this.stream = null;
+		this.channel = channel;
+	}
+	
+	private static ByteBuffer allocate(final int bufferSize, final boolean direct) {
+		if (bufferSize < MINIMUM_REMAINING) {
+			throw new IllegalArgumentException("bufferSize must be at least " + MINIMUM_REMAINING);
+		}
+		return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+	}
+	
+	@Override
+	protected ByteBuffer drain(final ByteBuffer buffer) throws IOException {
+		if (stream != null) {
+			stream.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+		} else {
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+		buffer.clear();
+		return buffer;
+	}
+	
+	/**
+	 * Writes any encoded bytes to the destination, and flushes the destination if it
+	 * is an {@link OutputStream}.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		super.flush();
+		if (stream != null) stream.flush();
+	}
+	
+	@Override
+	protected void onClose() throws IOException {
+		if (stream != null) {
+			stream.close();
+		} else {
+			channel.close();
+		}
+	}
+	
+}
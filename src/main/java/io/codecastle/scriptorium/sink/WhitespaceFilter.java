@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium.sink;
+
+import io.codecastle.scriptorium.FluentAppendable;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * A {@link FluentAppendable} that collapses or removes runs of whitespace as
+ * characters pass through it to a destination.
+ * 
+ * <p>
+ * Spaces, tabs, line feeds, carriage returns and form feeds are whitespace. A run of
+ * whitespace may span several calls to the {@code append} methods; the filter
+ * remembers whether the last character it saw was whitespace. Characters between
+ * runs are appended to the destination with a single call to
+ * {@link Appendable#append(CharSequence, int, int)}, so no intermediate strings are
+ * created.
+ * 
+ * <p>
+ * Between calls to {@link #protect()} and {@link #unprotect()}, such as around a
+ * pre-formatted block, characters are appended unchanged. Protected regions may be
+ * nested.
+ * 
+ * <p>
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Doug Valenta
+ */
+public final class WhitespaceFilter implements FluentAppendable<WhitespaceFilter>, Flushable, Closeable {
+	
+	/**
+	 * How a filter treats runs of whitespace.
+	 */
+	public enum Mode {
+		
+		/**
+		 * Each run of whitespace is replaced by a single space.
+		 */
+		COLLAPSE,
+		
+		/**
+		 * Each run of whitespace is removed.
+		 */
+		REMOVE
+		
+	}
+	
+	private static final char SPACE = ' ';
+	
+	private final Appendable destination;
+	private final boolean collapse;
+	private boolean inWhitespace;
+	private int protectDepth;
+	
+	/**
+	 * Constructs a new filter that appends to the provided destination, collapsing
+	 * each run of whitespace to a single space.
+	 * 
+	 * @param destination the appendable to append to
+	 */
+	public WhitespaceFilter(final Appendable destination) {
+		this(destination, Mode.COLLAPSE);
+	}
+	
+	/**
+	 * Constructs a new filter that appends to the provided destination, treating runs
+	 * of whitespace according to the provided mode.
+	 * 
+	 * @param destination the appendable to append to
+	 * @param mode how runs of whitespace are treated
+	 */
+	public WhitespaceFilter(final Appendable destination, final Mode mode) {
+		if (destination == null) throw new NullPointerException("destination");
+		if (mode == null) throw new NullPointerException("mode");
+		this.destination = destination;
+		this.collapse = mode == Mode.COLLAPSE;
+	}
+	
+	/**
+	 * Returns whether the provided character is whitespace, as treated by this class.
+	 * 
+	 * @param character the character to test
+	 * @return true if the character is a space, tab, line feed, carriage return or form
+	 * feed, otherwise false
+	 */
+	public static boolean isWhitespace(final char character) {
+		return character <= SPACE
+				&& (character == SPACE || character == '\t' || character == '\n' || character == '\r' || character == '\f');
+	}
+	
+	/**
+	 * Begins a protected region, in which characters are appended unchanged, and
+	 * returns this object.
+	 * 
+	 * @return this object
+	 */
+	public WhitespaceFilter protect() {
+		protectDepth++;
+		inWhitespace = false;
+		return this;
+	}
+	
+	/**
+	 * Ends the innermost protected region and returns this object.
+	 * 
+	 * @return this object
+	 * @throws IllegalStateException if no region is protected
+	 */
+	public WhitespaceFilter unprotect() {
+		if (protectDepth == 0) throw new IllegalStateException("No region is protected");
+		protectDepth--;
+		return this;
+	}
+	
+	/**
+	 * Returns whether characters are currently appended unchanged.
+	 * 
+	 * @return true if a region is protected, otherwise false
+	 */
+	public boolean isProtected() {
+		return protectDepth > 0;
+	}
+	
+	@Override
+	public WhitespaceFilter append(final char character) throws IOException {
+		if (protectDepth > 0) {
+			destination.append(character);
+		} else if (!isWhitespace(character)) {
+			inWhitespace = false;
+			destination.append(character);
+		} else if (!inWhitespace) {
+			inWhitespace = true;
+			if (collapse) destination.append(SPACE);
+		}
+		return this;
+	}
+	
+	@Override
+	public WhitespaceFilter append(final CharSequence sequence) throws IOException {
+		final CharSequence characters = sequence == null ? "null" : sequence;
+		return append(characters, 0, characters.length());
+	}
+	
+	@Override
+	public WhitespaceFilter append(final CharSequence sequence, final int start, final int end) throws IOException {
+		final CharSequence characters = sequence == null ? "null" : sequence;
+		if (start < 0 || start > end || end > characters.length()) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + characters.length());
+		}
+		if (protectDepth > 0) {
+			destination.append(characters, start, end);
+			return this;
+		}
+		int index = start;
+		while (index < end) {
+			if (isWhitespace(characters.charAt(index))) {
+				if (!inWhitespace) {
+					inWhitespace = true;
+					if (collapse) destination.append(SPACE);
+				}
+				index++;
+				while (index < end && isWhitespace(characters.charAt(index))) index++;
+			} else {
+				final int run = index;
+				index++;
+				while (index < end && !isWhitespace(characters.charAt(index))) index++;
+				inWhitespace = false;
+				destination.append(characters, run, index);
+			}
+		}
+		return this;
+	}
+	
+	/**
+	 * Flushes the destination if it is {@link Flushable}.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (destination instanceof Flushable) ((Flushable) destination).flush();
+	}
+	
+	/**
+	 * Closes the destination if it is {@link Closeable}.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (destination instanceof Closeable) ((Closeable) destination).close();
+	}
+	
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+
+/**
+ * {@link io.codecastle.scriptorium.FluentAppendable} implementations that buffer,
+ * encode and deliver output to its final destination.
+ */
+package io.codecastle.scriptorium.sink;
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.metrics.InMemoryMetricRegistry;
+import io.codecastle.scriptorium.metrics.NodeCounters;
+import io.codecastle.scriptorium.metrics.ProfileFrame;
+import io.codecastle.scriptorium.metrics.RenderProfile;
+import io.codecastle.scriptorium.metrics.RenderProfiler;
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class AbstractInscribableTest {
+	
+	/**
+	 * A node that outputs a bracket when opened and when closed, and reuses a single
+	 * child object.
+	 */
+	private static final class Bracket extends AbstractInscribable<Bracket, Bracket, Bracket> {
+		
+		private final StringBuilder builder;
+		private Bracket child;
+		private Escaper escaper;
+		
+		Bracket(final NodeStack stack, final StringBuilder builder) {
+			super(stack);
+			this.builder = builder;
+		}
+		
+		static Bracket root(final StringBuilder builder) {
+			final Bracket root = new Bracket(new NodeStack(), builder);
+			root.open(null);
+			builder.append('[');
+			return root;
+		}
+		
+		Bracket child() throws IOException {
+			if (child == null) child = new Bracket(stack(), builder);
+			openChild(child);
+			builder.append('[');
+			return child;
+		}
+		
+		Bracket child(final Escaper escaper) throws IOException {
+			if (child == null) child = new Bracket(stack(), builder);
+			child.escaper = escaper;
+			return child();
+		}
+		
+		Bracket newChild(final Escaper escaper) throws IOException {
+			final Bracket node = new Bracket(stack(), builder);
+			node.escaper = escaper;
+			openChild(node);
+			builder.append('[');
+			return node;
+		}
+		
+		@Override
+		protected Escaper escaper() {
+			return escaper;
+		}
+		
+		@Override
+		protected Bracket inscribed() {
+			return this;
+		}
+		
+		@Override
+		protected void onClose() {
+			builder.append(']');
+		}
+		
+	}
+	
+	/**
+	 * A node that throws when it is closed.
+	 */
+	private static final class Failing extends AbstractInscribable<Object, Failing, Object> {
+		
+		Failing(final NodeStack stack) {
+			super(stack);
+		}
+		
+		@Override
+		protected Object inscribed() {
+			return this;
+		}
+		
+		@Override
+		protected void onClose() throws IOException {
+			throw new IOException("onClose");
+		}
+		
+	}
+	
+	@Test
+	public void testInscribeThen() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		final Bracket result = root.inscribe(Bracket::child).inscribe(Bracket::child).then().then();
+		Assert.assertSame(root, result);
+		Assert.assertEquals("[[[]]", builder.toString());
+		Assert.assertEquals(1, root.stack().depth());
+		root.close();
+		Assert.assertEquals("[[[]]]", builder.toString());
+		Assert.assertFalse(root.isOpen());
+		Assert.assertEquals(0, root.stack().depth());
+	}
+	
+	@Test
+	public void testCloseClosesOpenChildren() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		final Bracket child = root.child();
+		final Bracket grandchild = child.child();
+		root.close();
+		Assert.assertEquals("[[[]]]", builder.toString());
+		Assert.assertFalse(child.isOpen());
+		Assert.assertFalse(grandchild.isOpen());
+		root.close();
+		child.close();
+		Assert.assertEquals("[[[]]]", builder.toString());
+	}
+	
+	@Test
+	public void testChildIsRecycled() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		final Bracket first = root.child();
+		final Bracket second = root.child();
+		Assert.assertSame(first, second);
+		Assert.assertSame(second, root.child().then().child());
+		root.close();
+		Assert.assertEquals("[[][][][]]", builder.toString());
+	}
+	
+	@Test
+	public void testWithClosesChildren() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		root.child();
+		root.with(node -> node.child().child());
+		root.with("x", (element, node) -> node.builder.append(element));
+		root.close();
+		Assert.assertEquals("[[][[]]x]", builder.toString());
+	}
+	
+	@Test
+	public void testDeepDocumentClosesWithoutRecursion() throws IOException {
+		final int depth = 100000;
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		Bracket node = root;
+		for (int level = 0; level < depth; level++) {
+			node = node.child();
+		}
+		Assert.assertEquals(depth + 1, root.stack().depth());
+		root.close();
+		Assert.assertEquals(0, root.stack().depth());
+		Assert.assertEquals(2 * (depth + 1), builder.length());
+		Assert.assertEquals(']', builder.charAt(builder.length() - 1));
+	}
+	
+	@Test
+	public void testContextEscaper() throws IOException {
+		final Escaper outer = new EscaperBuilder().escape('<', "&lt;").build();
+		final Escaper inner = new EscaperBuilder().escape('"', "\\\"").escape('<', "\\u003c").build();
+		final Bracket root = Bracket.root(new StringBuilder());
+		Assert.assertNull(root.contextEscaper());
+		final Bracket child = root.child(outer);
+		Assert.assertSame(outer, child.contextEscaper());
+		final Bracket grandchild = child.child(null);
+		Assert.assertSame(outer, grandchild.contextEscaper());
+		final Bracket greatGrandchild = grandchild.child(inner);
+		final StringBuilder escaped = new StringBuilder();
+		greatGrandchild.contextEscaper().escape("<\"", escaped);
+		Assert.assertEquals("\\u003c\\\"", escaped.toString());
+		root.close();
+	}
+	
+	@Test
+	public void testSameEscaperIsNotFusedWithItself() throws IOException {
+		final Escaper html = new EscaperBuilder().escape('&', "&amp;").escape('<', "&lt;").build();
+		final Escaper json = new EscaperBuilder().escape('"', "\\\"").build();
+		final Bracket root = Bracket.root(new StringBuilder());
+		final Bracket child = root.child(html);
+		final Bracket grandchild = child.child(html);
+		Assert.assertSame(html, grandchild.contextEscaper());
+		final Bracket nested = grandchild.child(null).child(html);
+		Assert.assertSame(html, nested.contextEscaper());
+		final StringBuilder escaped = new StringBuilder();
+		nested.contextEscaper().escape("a & b", escaped);
+		Assert.assertEquals("a &amp; b", escaped.toString());
+		final Bracket script = child.child(json);
+		final Bracket inScript = script.child(json);
+		Assert.assertSame(script.contextEscaper(), inScript.contextEscaper());
+		escaped.setLength(0);
+		inScript.contextEscaper().escape("\"&\"", escaped);
+		Assert.assertEquals("\\\"&amp;\\\"", escaped.toString());
+		root.close();
+	}
+	
+	@Test
+	public void testFusedEscaperIsKeptWhenReopened() throws IOException {
+		final Escaper outer = new EscaperBuilder().escape('<', "&lt;").build();
+		final Escaper inner = new EscaperBuilder().escape('"', "\\\"").build();
+		final Bracket root = Bracket.root(new StringBuilder());
+		final Bracket child = root.child(outer);
+		final Escaper fused = child.child(inner).contextEscaper();
+		Assert.assertNotSame(inner, fused);
+		Assert.assertSame(fused, child.child(inner).contextEscaper());
+		Assert.assertSame(fused, child.child(inner).contextEscaper());
+		root.close();
+	}
+	
+	@Test
+	public void testFusedEscaperIsSharedByNewNodes() throws IOException {
+		final Escaper outer = new EscaperBuilder().escape('<', "&lt;").build();
+		final Escaper inner = new EscaperBuilder().escape('"', "\\\"").build();
+		final Bracket root = Bracket.root(new StringBuilder());
+		final Bracket child = root.child(outer);
+		final Escaper fused = child.newChild(inner).contextEscaper();
+		Assert.assertNotSame(inner, fused);
+		Assert.assertSame(fused, child.newChild(inner).contextEscaper());
+		Assert.assertSame(fused, root.newChild(outer).newChild(inner).contextEscaper());
+		root.close();
+	}
+	
+	@Test
+	public void testCountsCallsPerNodeClass() throws IOException {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = new Bracket(new NodeStack(new NodeCounters(registry)), builder).open(null);
+		root.inscribe(Bracket::child).then().with(node -> node.builder.append('x'));
+		root.withEach(new String[] {"a", "b"}, (element, node) -> node.builder.append(element));
+		root.close();
+		Assert.assertEquals("[]xab]", builder.toString());
+		Assert.assertEquals(1, registry.sum(Bracket.class.getName() + NodeCounters.INSCRIBES));
+		Assert.assertEquals(3, registry.sum(Bracket.class.getName() + NodeCounters.WITHS));
+	}
+	
+	@Test
+	public void testProfilesNodes() throws IOException {
+		final RenderProfiler profiler = new RenderProfiler(1);
+		final StringBuilder builder = new StringBuilder();
+		final RenderProfile profile = profiler.sample(builder::length);
+		final Bracket root = new Bracket(new NodeStack(profile), builder).open(null);
+		root.child().child().then().then().child();
+		root.close();
+		Assert.assertEquals("[[]][]]", builder.toString());
+		final ProfileFrame frame = profile.roots().get(0);
+		Assert.assertEquals("Bracket", frame.name());
+		Assert.assertEquals(7, frame.characters());
+		final ProfileFrame child = frame.children().iterator().next();
+		Assert.assertEquals(2, child.count());
+		Assert.assertEquals(1, child.children().iterator().next().count());
+		Assert.assertEquals(1, profiler.sampledCount());
+	}
+	
+	@Test
+	public void testCombinedListeners() throws IOException {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		final RenderProfiler profiler = new RenderProfiler(1);
+		final StringBuilder builder = new StringBuilder();
+		final RenderProfile profile = profiler.sample(builder::length);
+		Assert.assertNull(NodeListener.of(null, null));
+		Assert.assertSame(profile, NodeListener.of(null, profile));
+		final NodeListener listener = NodeListener.of(new NodeCounters(registry), null, profile);
+		final Bracket root = new Bracket(new NodeStack(listener), builder).open(null);
+		root.inscribe(Bracket::child).with(node -> node.builder.append('x'));
+		root.close();
+		Assert.assertEquals("[x]]", builder.toString());
+		Assert.assertEquals(1, registry.sum(Bracket.class.getName() + NodeCounters.INSCRIBES));
+		Assert.assertEquals(1, registry.sum(Bracket.class.getName() + NodeCounters.WITHS));
+		Assert.assertEquals(4, profile.roots().get(0).characters());
+		Assert.assertEquals(1, profiler.sampledCount());
+	}
+	
+	@Test
+	public void testListenerIsNotifiedWhenCloseThrows() throws IOException {
+		final StringBuilder closes = new StringBuilder();
+		final NodeListener listener = new NodeListener() {
+			
+			@Override
+			public void opened(final Class<?> type, final int depth) {
+			}
+			
+			@Override
+			public void closed(final Class<?> type, final int depth) {
+				closes.append(depth);
+			}
+			
+		};
+		final NodeStack stack = new NodeStack(listener);
+		final Failing root = new Failing(stack).open(null);
+		new Failing(stack).open(root);
+		try {
+			root.close();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("onClose", e.getMessage());
+			Assert.assertEquals(1, e.getSuppressed().length);
+		}
+		Assert.assertFalse(root.isOpen());
+		Assert.assertEquals("10", closes.toString());
+		Assert.assertEquals(0, stack.depth());
+	}
+	
+	@Test
+	public void testConsumerMayCloseItsNode() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Bracket root = Bracket.root(builder);
+		final Bracket child = root.child();
+		child.with(Bracket::close);
+		Assert.assertFalse(child.isOpen());
+		root.child().with("x", (element, node) -> node.close());
+		Assert.assertFalse(child.isOpen());
+		root.child();
+		root.close();
+		Assert.assertEquals("[[][][]]", builder.toString());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testOpenTwice() {
+		final Bracket root = Bracket.root(new StringBuilder());
+		root.open(null);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testInscribeOnClosedNode() throws IOException {
+		final Bracket root = Bracket.root(new StringBuilder());
+		root.close();
+		root.inscribe(Bracket::child);
+	}
+	
+}
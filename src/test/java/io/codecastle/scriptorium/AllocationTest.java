@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOBiConsumer;
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IOFunction;
+import io.codecastle.scriptorium.scribe.CachingEscaper;
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import io.codecastle.scriptorium.scribe.Whitespace;
+import io.codecastle.scriptorium.sink.CharChunkPool;
+import io.codecastle.scriptorium.sink.ChunkedCharBuffer;
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Verifies that paths promised not to allocate in steady state do not, by measuring
+ * the bytes allocated by the current thread around warmed-up calls.
+ * 
+ * @author Doug Valenta
+ */
+public class AllocationTest {
+	
+	private static final int WARMUP_ITERATIONS = 20000;
+	private static final int ITERATIONS = 100000;
+	
+	private static final String CLEAN_TEXT = "The quick brown fox jumps over the lazy dog";
+	private static final IOConsumer<Object> CONSUMER = inscribed -> { };
+	private static final IOBiConsumer<Object, Object> BI_CONSUMER = (element, inscribed) -> { };
+	
+	private static com.sun.management.ThreadMXBean threadBean;
+	
+	@FunctionalInterface
+	private interface Action {
+		
+		void run() throws IOException;
+		
+	}
+	
+	/**
+	 * An inscribable that does nothing with its consumers.
+	 */
+	private static final class Stub implements Inscribable<Object, Stub> {
+		
+		@Override
+		public <T extends FluentNode<Stub>> T inscribe(final IOFunction<? super Stub, T> function) {
+			throw new UnsupportedOperationException("Not implemented");
+		}
+		
+		@Override
+		public Stub with(final IOConsumer<? super Object> consumer) {
+			return this;
+		}
+		
+		@Override
+		public <T> Stub with(final T element, final IOBiConsumer<? super T, ? super Object> biConsumer) {
+			return this;
+		}
+		
+	}
+	
+	@BeforeClass
+	public static void setUpClass() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+	
+	private static void assertNoAllocation(final Action action) throws IOException {
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+			action.run();
+		}
+		final long threadId = Thread.currentThread().getId();
+		final long baseline = threadBean.getThreadAllocatedBytes(threadId);
+		final long overhead = threadBean.getThreadAllocatedBytes(threadId) - baseline;
+		final long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			action.run();
+		}
+		final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+		Assert.assertTrue("allocated " + allocated + " bytes in " + ITERATIONS + " iterations", allocated < ITERATIONS);
+	}
+	
+	@Test
+	public void testWhitespace() throws IOException {
+		final StringBuilder builder = new StringBuilder(2048);
+		final Whitespace whitespace = new Whitespace(builder);
+		assertNoAllocation(() -> {
+			builder.setLength(0);
+			whitespace.space().spaces(1).spaces(16).spaces(700).tab().tabs(300).newline().newlines(20);
+		});
+	}
+	
+	@Test
+	public void testInscribableDefaults() throws IOException {
+		final Stub inscribable = new Stub();
+		final Object element = new Object();
+		final Optional<Object> optional = Optional.of(element);
+		final Object[] array = {element, element, element};
+		final List<Object> list = new ArrayList<>();
+		list.add(element);
+		list.add(element);
+		assertNoAllocation(() -> {
+			inscribable.withIf(true, CONSUMER);
+			inscribable.withIf(false, CONSUMER);
+			inscribable.withIfNotNull(element, BI_CONSUMER);
+			inscribable.withIfNotNull(null, BI_CONSUMER);
+			inscribable.withIfPresent(optional, BI_CONSUMER);
+			inscribable.withEach(array, BI_CONSUMER);
+			inscribable.withEach(list, BI_CONSUMER);
+		});
+	}
+	
+	@Test
+	public void testRenderPlan() throws IOException {
+		final Stub inscribable = new Stub();
+		final List<Object> list = new ArrayList<>();
+		list.add(list);
+		final IOFunction<Object, Object> accessor = data -> data;
+		final IOFunction<List<Object>, List<Object>> elements = data -> data;
+		final RenderPlan<List<Object>, Object, Stub> plan = new RenderPlanBuilder<List<Object>, Object, Stub>()
+				.with(CONSUMER)
+				.withData(BI_CONSUMER)
+				.with(accessor, BI_CONSUMER)
+				.withIfNotNull(accessor, BI_CONSUMER)
+				.withEach(elements, BI_CONSUMER)
+				.build();
+		assertNoAllocation(() -> plan.render(list, inscribable));
+	}
+	
+	@Test
+	public void testEscapeCleanText() throws IOException {
+		final StringBuilder builder = new StringBuilder(256);
+		final Escaper defaultEscaper = new Escaper() {
+			
+			@Override
+			public void escape(final char character, final Appendable appendable) throws IOException {
+				appendable.append("&amp;");
+			}
+			
+			@Override
+			public boolean requiresEscape(final char character) {
+				return character == '&';
+			}
+			
+		};
+		final Escaper tableEscaper = new EscaperBuilder().escape('&', "&amp;").escape('\u2028', "&#x2028;").build();
+		Assert.assertEquals(-1, defaultEscaper.indexOfEscape(CLEAN_TEXT, 0, CLEAN_TEXT.length()));
+		Assert.assertEquals(-1, tableEscaper.indexOfEscape(CLEAN_TEXT, 0, CLEAN_TEXT.length()));
+		Assert.assertFalse(tableEscaper.requiresEscape('a'));
+		assertNoAllocation(() -> {
+			builder.setLength(0);
+			defaultEscaper.escape(CLEAN_TEXT, builder);
+			tableEscaper.escape(CLEAN_TEXT, builder);
+			tableEscaper.escape('a', builder);
+		});
+	}
+	
+	@Test
+	public void testCachingEscaper() throws IOException {
+		final StringBuilder builder = new StringBuilder(256);
+		final Escaper escaper = new CachingEscaper(new EscaperBuilder().escape('&', "&amp;").build());
+		assertNoAllocation(() -> {
+			builder.setLength(0);
+			escaper.escape("fieldName", builder);
+			escaper.escape("Fish & Chips", builder);
+		});
+	}
+	
+	@Test
+	public void testUtf8Sink() throws IOException {
+		final Utf8Sink sink = new Utf8Sink(new OutputStream() {
+			
+			@Override
+			public void write(final int b) {
+			}
+			
+			@Override
+			public void write(final byte[] b, final int off, final int len) {
+			}
+			
+		}, 256);
+		assertNoAllocation(() -> sink.append(CLEAN_TEXT).append('\u00e9').append("\ud83d\ude00"));
+	}
+	
+	@Test
+	public void testChunkedCharBuffer() throws IOException {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(64, 16));
+		assertNoAllocation(() -> {
+			buffer.append(CLEAN_TEXT).append(CLEAN_TEXT).append('!');
+			buffer.clear();
+		});
+	}
+	
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.ArenaSink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class ArenaSinkTest {
+	
+	private static final String TEXT = "<doc>caf\u00e9 \u4e2d\u6587 \ud83d\ude00</doc>";
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	private static String transfer(final ArenaSink sink) throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Assert.assertEquals(sink.size(), sink.transferTo(Channels.newChannel(stream)));
+		return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	private static String repeat(final ArenaSink sink, final int count) throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < count; index++) {
+			sink.append(TEXT).append('\n');
+			expected.append(TEXT).append('\n');
+		}
+		return expected.toString();
+	}
+	
+	@Test
+	public void testWithinOneSegment() throws IOException {
+		final ArenaSink sink = new ArenaSink();
+		Assert.assertEquals(sink, sink.append(TEXT));
+		sink.close();
+		Assert.assertFalse(sink.isSpilled());
+		Assert.assertEquals(TEXT, transfer(sink));
+		sink.discard();
+	}
+	
+	@Test
+	public void testSized() throws IOException {
+		final ArenaSink small = ArenaSink.sized(TEXT.length(), folder.getRoot().toPath());
+		final String expected = repeat(small, 200);
+		small.close();
+		Assert.assertFalse(small.isSpilled());
+		Assert.assertEquals(expected, transfer(small));
+		small.discard();
+		final ArenaSink large = ArenaSink.sized(Long.MAX_VALUE, null);
+		large.append(TEXT).close();
+		Assert.assertEquals(TEXT, transfer(large));
+		large.discard();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeExpectedSize() {
+		ArenaSink.sized(-1, null);
+	}
+	
+	@Test
+	public void testAcrossSegmentsInMemory() throws IOException {
+		final ArenaSink sink = new ArenaSink(7, 1 << 20, folder.getRoot().toPath());
+		final String expected = repeat(sink, 50);
+		sink.close();
+		Assert.assertFalse(sink.isSpilled());
+		Assert.assertEquals(expected, transfer(sink));
+		sink.discard();
+	}
+	
+	@Test
+	public void testSpillsBeyondMemoryBudget() throws IOException {
+		final Path directory = folder.getRoot().toPath();
+		final ArenaSink sink = new ArenaSink(16, 64, directory);
+		final String expected = repeat(sink, 50);
+		sink.flush();
+		Assert.assertTrue(sink.isSpilled());
+		sink.close();
+		Assert.assertEquals(expected, transfer(sink));
+		Assert.assertEquals(expected, transfer(sink));
+		sink.discard();
+		Assert.assertEquals(0, directory.toFile().list().length);
+	}
+	
+	@Test
+	public void testTransferToFile() throws IOException {
+		final Path path = folder.newFile().toPath();
+		final ArenaSink sink = new ArenaSink(16, 32, folder.getRoot().toPath());
+		final String expected = repeat(sink, 20);
+		sink.close();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			sink.transferTo(channel);
+		}
+		sink.discard();
+		Assert.assertEquals(expected, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testTransferToNonBlockingChannel() throws IOException {
+		final ArenaSink sink = new ArenaSink();
+		sink.append(TEXT);
+		sink.close();
+		final Pipe pipe = Pipe.open();
+		try {
+			pipe.sink().configureBlocking(false);
+			sink.transferTo(pipe.sink());
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("channel must be in blocking mode", e.getMessage());
+		} finally {
+			pipe.sink().close();
+			pipe.source().close();
+			sink.discard();
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testTransferWhileOpen() throws IOException {
+		final ArenaSink sink = new ArenaSink();
+		sink.append(TEXT);
+		transfer(sink);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testTransferAfterDiscard() throws IOException {
+		final ArenaSink sink = new ArenaSink();
+		sink.append(TEXT);
+		sink.discard();
+		transfer(sink);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMemoryBudgetSmallerThanSegment() {
+		new ArenaSink(64, 32, null);
+	}
+	
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.CachingEscaper;
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class CachingEscaperTest {
+	
+	private static final Escaper HTML = new EscaperBuilder().escape('&', "&amp;").escape('<', "&lt;").build();
+	
+	@Test
+	public void testEscapesLikeDelegate() throws IOException {
+		final CachingEscaper escaper = new CachingEscaper(HTML);
+		for (String string : new String[] {"name", "a&b", "<tag>", "", "a&b"}) {
+			final StringBuilder expected = new StringBuilder();
+			HTML.escape(string, expected);
+			final StringBuilder actual = new StringBuilder();
+			escaper.escape(string, actual);
+			Assert.assertEquals(expected.toString(), actual.toString());
+		}
+	}
+	
+	@Test
+	public void testCleanStringIsCachedAsItself() throws IOException {
+		final CachingEscaper escaper = new CachingEscaper(HTML);
+		final String string = "fieldName";
+		Assert.assertSame(string, escaper.escaped(string));
+		Assert.assertSame(string, escaper.escaped(new String(string)));
+	}
+	
+	@Test
+	public void testHitDoesNotCallDelegate() throws IOException {
+		final AtomicInteger calls = new AtomicInteger();
+		final CachingEscaper escaper = new CachingEscaper(new Escaper() {
+			
+			@Override
+			public void escape(final char character, final Appendable appendable) throws IOException {
+				calls.incrementAndGet();
+				HTML.escape(character, appendable);
+			}
+			
+			@Override
+			public int indexOfEscape(final CharSequence sequence, final int start, final int end) {
+				calls.incrementAndGet();
+				return HTML.indexOfEscape(sequence, start, end);
+			}
+			
+		});
+		final String escaped = escaper.escaped("a&b");
+		Assert.assertEquals("a&amp;b", escaped);
+		calls.set(0);
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		escaper.escape("a&b", appendable);
+		escaper.escape("a&b", 0, 3, appendable);
+		Mockito.verify(appendable, Mockito.times(2)).append(escaped);
+		Mockito.verifyNoMoreInteractions(appendable);
+		Assert.assertEquals(0, calls.get());
+	}
+	
+	@Test
+	public void testRangesAndLongStringsUseDelegate() throws IOException {
+		final CachingEscaper escaper = new CachingEscaper(HTML, 16, 4);
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape("xa&by", 1, 4, builder);
+		escaper.escape("long & string", builder);
+		escaper.escape(new StringBuilder("<b"), builder);
+		escaper.escape('<', builder);
+		Assert.assertEquals("a&amp;blong &amp; string&lt;b&lt;", builder.toString());
+	}
+	
+	@Test
+	public void testCollidingStrings() throws IOException {
+		final CachingEscaper escaper = new CachingEscaper(HTML, 1, 64);
+		Assert.assertEquals("a&amp;", escaper.escaped("a&"));
+		Assert.assertEquals("b&lt;", escaper.escaped("b<"));
+		Assert.assertEquals("a&amp;", escaper.escaped("a&"));
+	}
+	
+}
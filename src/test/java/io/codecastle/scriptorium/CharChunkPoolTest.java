@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.CharChunkPool;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class CharChunkPoolTest {
+	
+	@Test
+	public void testAcquireAllocatesWhenEmpty() {
+		final CharChunkPool pool = new CharChunkPool(16, 8);
+		Assert.assertEquals(16, pool.chunkSize());
+		final char[] first = pool.acquire();
+		final char[] second = pool.acquire();
+		Assert.assertEquals(16, first.length);
+		Assert.assertNotSame(first, second);
+	}
+	
+	@Test
+	public void testReleasedChunkIsReused() {
+		final CharChunkPool pool = new CharChunkPool(16, 8);
+		final char[] chunk = pool.acquire();
+		pool.release(chunk);
+		Assert.assertSame(chunk, pool.acquire());
+	}
+	
+	@Test
+	public void testPoolIsBounded() {
+		final CharChunkPool pool = new CharChunkPool(16, 4);
+		Assert.assertTrue(pool.capacity() <= 4);
+		final List<char[]> chunks = new ArrayList<>();
+		for (int index = 0; index < 10; index++) {
+			chunks.add(new char[16]);
+		}
+		for (char[] chunk : chunks) {
+			pool.release(chunk);
+		}
+		final Set<char[]> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int index = 0; index < 10; index++) {
+			final char[] chunk = pool.acquire();
+			if (chunks.contains(chunk)) reused.add(chunk);
+		}
+		Assert.assertTrue(reused.size() <= pool.capacity());
+	}
+	
+	@Test
+	public void testZeroCapacity() {
+		final CharChunkPool pool = new CharChunkPool(16, 0);
+		final char[] chunk = pool.acquire();
+		pool.release(chunk);
+		Assert.assertNotSame(chunk, pool.acquire());
+	}
+	
+	@Test
+	public void testConcurrentUse() throws Exception {
+		final CharChunkPool pool = new CharChunkPool(16, 64);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<Boolean>> futures = new ArrayList<>();
+			for (int task = 0; task < 8; task++) {
+				final char marker = (char) ('a' + task);
+				futures.add(executor.submit(() -> {
+					for (int iteration = 0; iteration < 10000; iteration++) {
+						final char[] chunk = pool.acquire();
+						chunk[0] = marker;
+						Thread.yield();
+						if (chunk[0] != marker) return false;
+						pool.release(chunk);
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				Assert.assertTrue(future.get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testReleaseWrongSize() {
+		new CharChunkPool(16, 4).release(new char[15]);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidChunkSize() {
+		new CharChunkPool(0, 4);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new CharChunkPool(16, -1);
+	}
+	
+}
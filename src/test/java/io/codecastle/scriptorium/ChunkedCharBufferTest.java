@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.CharChunkPool;
+import io.codecastle.scriptorium.sink.ChunkedCharBuffer;
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class ChunkedCharBufferTest {
+	
+	private static final String TEXT = "The quick brown fox jumps over the lazy dog";
+	
+	@Test
+	public void testAppend() {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(8, 16));
+		Assert.assertEquals(buffer, buffer.append(TEXT, 0, 10));
+		Assert.assertEquals(buffer, buffer.append('!'));
+		Assert.assertEquals(buffer, buffer.append(new StringBuilder(TEXT)));
+		Assert.assertEquals(buffer, buffer.append(CharBuffer.wrap(TEXT), 4, 9));
+		Assert.assertEquals(buffer, buffer.append(TEXT.toCharArray(), 10, 20));
+		Assert.assertEquals(buffer, buffer.append(null));
+		final String expected = TEXT.substring(0, 10) + '!' + TEXT + TEXT.substring(4, 9) + TEXT.substring(10, 30) + "null";
+		Assert.assertEquals(expected, buffer.toString());
+		Assert.assertEquals(expected.length(), buffer.length());
+		for (int index = 0; index < expected.length(); index++) {
+			Assert.assertEquals(expected.charAt(index), buffer.charAt(index));
+		}
+		Assert.assertEquals(expected.substring(5, 37), buffer.subSequence(5, 37).toString());
+	}
+	
+	@Test
+	public void testEmpty() throws IOException {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer();
+		Assert.assertEquals(0, buffer.length());
+		Assert.assertEquals("", buffer.toString());
+		final Writer writer = Mockito.mock(Writer.class);
+		buffer.writeTo(writer);
+		Mockito.verifyZeroInteractions(writer);
+	}
+	
+	@Test
+	public void testWriteToWriterUsesChunks() throws IOException {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(16, 16));
+		buffer.append(TEXT);
+		final Writer writer = Mockito.mock(Writer.class);
+		buffer.writeTo(writer);
+		Mockito.verify(writer, Mockito.times(2)).write(Mockito.any(char[].class), Mockito.eq(0), Mockito.eq(16));
+		Mockito.verify(writer).write(Mockito.any(char[].class), Mockito.eq(0), Mockito.eq(TEXT.length() - 32));
+		Mockito.verifyNoMoreInteractions(writer);
+		Assert.assertEquals(TEXT, buffer.toString());
+	}
+	
+	@Test
+	public void testDrainToWriter() throws IOException {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(16, 16));
+		buffer.append(TEXT);
+		final StringWriter writer = new StringWriter();
+		buffer.drainTo(writer);
+		Assert.assertEquals(TEXT, writer.toString());
+		Assert.assertEquals(0, buffer.length());
+	}
+	
+	@Test
+	public void testDrainToAppendable() throws IOException {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(16, 16));
+		buffer.append(TEXT).append(" \ud83d\ude00");
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			buffer.drainTo(sink);
+		}
+		Assert.assertEquals(TEXT + " \ud83d\ude00", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+		Assert.assertEquals(0, buffer.length());
+	}
+	
+	@Test
+	public void testCapacity() {
+		final CharChunkPool pool = new CharChunkPool(8, 16);
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(pool, 20);
+		buffer.append(TEXT);
+		Assert.assertEquals(TEXT, buffer.toString());
+		buffer.clear();
+		buffer.append(TEXT, 0, 3);
+		Assert.assertEquals("The", buffer.toString());
+		Assert.assertEquals(TEXT, new ChunkedCharBuffer(pool, 0).append(TEXT).toString());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCapacity() {
+		new ChunkedCharBuffer(new CharChunkPool(8, 16), -1);
+	}
+	
+	@Test
+	public void testClearReleasesChunks() {
+		final CharChunkPool pool = new CharChunkPool(16, 16);
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(pool);
+		buffer.append('a');
+		buffer.clear();
+		final char[] chunk = pool.acquire();
+		pool.release(chunk);
+		buffer.append("reused");
+		Assert.assertEquals("reused", buffer.toString());
+		buffer.close();
+		Assert.assertSame(chunk, pool.acquire());
+	}
+	
+	@Test
+	public void testClearFromAnotherThreadReleasesToOwnStripe() throws InterruptedException {
+		final CharChunkPool pool = new CharChunkPool(16, 1024);
+		final ChunkedCharBuffer[] buffer = new ChunkedCharBuffer[1];
+		final Thread owner = new Thread(() -> buffer[0] = new ChunkedCharBuffer(pool).append('a'));
+		owner.start();
+		owner.join();
+		final char[] chunk = ((CharBuffer) buffer[0].view(0, 1)).array();
+		buffer[0].clear();
+		buffer[0].append('b');
+		Assert.assertSame(chunk, ((CharBuffer) buffer[0].view(0, 1)).array());
+	}
+	
+	@Test
+	public void testView() {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(8, 16));
+		buffer.append(TEXT);
+		final CharSequence within = buffer.view(9, 14);
+		Assert.assertTrue(within instanceof CharBuffer);
+		Assert.assertEquals(TEXT.substring(9, 14), within.toString());
+		final CharSequence spanning = buffer.view(5, 37);
+		Assert.assertEquals(TEXT.substring(5, 37), spanning.toString());
+		Assert.assertEquals(32, spanning.length());
+		for (int index = 0; index < spanning.length(); index++) {
+			Assert.assertEquals(TEXT.charAt(5 + index), spanning.charAt(index));
+		}
+		Assert.assertEquals(TEXT.substring(7, 20), spanning.subSequence(2, 15).toString());
+		Assert.assertEquals("", buffer.view(16, 16).toString());
+		final StringBuilder builder = new StringBuilder();
+		builder.append(spanning);
+		Assert.assertEquals(TEXT.substring(5, 37), builder.toString());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testViewOutOfBounds() {
+		new ChunkedCharBuffer().append("abc").view(1, 4);
+	}
+	
+	@Test
+	public void testGetChars() {
+		final ChunkedCharBuffer buffer = new ChunkedCharBuffer(new CharChunkPool(4, 16));
+		buffer.append(TEXT);
+		final char[] characters = new char[12];
+		buffer.getChars(3, 13, characters, 2);
+		Assert.assertEquals(TEXT.substring(3, 13), new String(characters, 2, 10));
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharAtOutOfBounds() {
+		new ChunkedCharBuffer().append("abc").charAt(3);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAppendRangeOutOfBounds() {
+		new ChunkedCharBuffer().append("abc", 1, 4);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAppendArrayOutOfBounds() {
+		new ChunkedCharBuffer().append(new char[3], 1, 3);
+	}
+	
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.CharChunkPool;
+import io.codecastle.scriptorium.sink.DeferredSink;
+import java.io.IOException;
+import java.io.Writer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class DeferredSinkTest {
+	
+	@Test
+	public void testPassesThroughWithoutPlaceholders() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final DeferredSink sink = new DeferredSink(builder);
+		Assert.assertSame(sink, sink.append('{').append("\"a\":1").append("x}y", 1, 2));
+		Assert.assertEquals("{\"a\":1}", builder.toString());
+		Assert.assertEquals(0, sink.heldLength());
+	}
+	
+	@Test
+	public void testFillsPlaceholder() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final DeferredSink sink = new DeferredSink(builder);
+		sink.append("{\"count\":");
+		final DeferredSink.Placeholder count = sink.reserve();
+		sink.append(",\"items\":[");
+		for (int item = 0; item < 3; item++) {
+			sink.append(item == 0 ? "" : ",").append(Integer.toString(item));
+		}
+		sink.append("]}");
+		Assert.assertEquals("{\"count\":", builder.toString());
+		Assert.assertEquals(17, sink.heldLength());
+		Assert.assertFalse(count.isFilled());
+		count.fill("3");
+		Assert.assertTrue(count.isFilled());
+		Assert.assertEquals("{\"count\":3,\"items\":[0,1,2]}", builder.toString());
+		Assert.assertEquals(0, sink.heldLength());
+		sink.append('\n');
+		Assert.assertEquals("{\"count\":3,\"items\":[0,1,2]}\n", builder.toString());
+	}
+	
+	@Test
+	public void testHoldsOutputAfterEarliestUnfilledPlaceholder() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final DeferredSink sink = new DeferredSink(builder, new CharChunkPool(4, 16));
+		sink.append("a");
+		final DeferredSink.Placeholder first = sink.reserve();
+		sink.append("b");
+		final DeferredSink.Placeholder second = sink.reserve();
+		sink.append("c");
+		final DeferredSink.Placeholder third = sink.reserve();
+		sink.append("d");
+		second.fill("2");
+		Assert.assertEquals("a", builder.toString());
+		first.fill("1");
+		Assert.assertEquals("a1b2c", builder.toString());
+		Assert.assertEquals(1, sink.heldLength());
+		third.fill("three");
+		sink.append("efghijklmnop");
+		Assert.assertEquals("a1b2cthreedefghijklmnop", builder.toString());
+	}
+	
+	@Test
+	public void testFlushAndClose() throws IOException {
+		final Writer writer = Mockito.mock(Writer.class);
+		final DeferredSink sink = new DeferredSink(writer);
+		sink.flush();
+		sink.close();
+		sink.close();
+		Mockito.verify(writer).flush();
+		Mockito.verify(writer).close();
+	}
+	
+	@Test
+	public void testCloseWithUnfilledPlaceholder() throws IOException {
+		final Writer writer = Mockito.mock(Writer.class);
+		final DeferredSink sink = new DeferredSink(writer);
+		sink.reserve();
+		sink.append("held");
+		try {
+			sink.close();
+			Assert.fail();
+		} catch (IOException e) {
+			Mockito.verify(writer).close();
+			Mockito.verifyNoMoreInteractions(writer);
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testFillTwice() throws IOException {
+		final DeferredSink.Placeholder placeholder = new DeferredSink(new StringBuilder()).reserve();
+		placeholder.fill("1");
+		placeholder.fill("2");
+	}
+	
+	@Test(expected = IOException.class)
+	public void testAppendAfterClose() throws IOException {
+		final DeferredSink sink = new DeferredSink(new StringBuilder());
+		sink.close();
+		sink.append('x');
+	}
+	
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class EscaperBuilderTest {
+	
+	private static Escaper jsonEscaper() {
+		return new EscaperBuilder()
+				.escape('\u0000', '\u001f', character -> String.format("\\u%04x", character))
+				.escape('"', "\\\"")
+				.escape('\\', "\\\\")
+				.escape('\n', "\\n")
+				.escape('\u2028', "\\u2028")
+				.build();
+	}
+	
+	private static void assertScanMatchesScalar(final Escaper escaper, final String alphabet) {
+		final Random random = new Random(42);
+		final StringBuilder builder = new StringBuilder();
+		for (int iteration = 0; iteration < 2000; iteration++) {
+			builder.setLength(0);
+			final int length = random.nextInt(40);
+			for (int index = 0; index < length; index++) {
+				builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			final int start = length == 0 ? 0 : random.nextInt(length);
+			int expected = -1;
+			for (int index = start; index < length; index++) {
+				if (escaper.requiresEscape(builder.charAt(index))) {
+					expected = index;
+					break;
+				}
+			}
+			Assert.assertEquals(builder.toString(), expected, escaper.indexOfEscape(builder, start, length));
+		}
+	}
+	
+	@Test
+	public void testEscapeCharacter() throws IOException {
+		final Escaper escaper = jsonEscaper();
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape('"', builder);
+		escaper.escape('a', builder);
+		escaper.escape('\n', builder);
+		escaper.escape('\u0001', builder);
+		escaper.escape('\u2028', builder);
+		escaper.escape('\u2029', builder);
+		Assert.assertEquals("\\\"a\\n\\u0001\\u2028\u2029", builder.toString());
+	}
+	
+	@Test
+	public void testRequiresEscape() {
+		final Escaper escaper = jsonEscaper();
+		Assert.assertTrue(escaper.requiresEscape('\u0000'));
+		Assert.assertTrue(escaper.requiresEscape('\u001f'));
+		Assert.assertTrue(escaper.requiresEscape('"'));
+		Assert.assertTrue(escaper.requiresEscape('\u2028'));
+		Assert.assertFalse(escaper.requiresEscape(' '));
+		Assert.assertFalse(escaper.requiresEscape('\u00ff'));
+		Assert.assertFalse(escaper.requiresEscape('\u0100'));
+		Assert.assertFalse(escaper.requiresEscape('\uffff'));
+	}
+	
+	@Test
+	public void testEscapeSequence() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		jsonEscaper().escape("say \"hi\"\n\u00e9\u2028", builder);
+		Assert.assertEquals("say \\\"hi\\\"\\n\u00e9\\u2028", builder.toString());
+	}
+	
+	@Test
+	public void testEscapeCopiesUnescapedRuns() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		final String sequence = "ab\"cd";
+		jsonEscaper().escape(sequence, appendable);
+		final InOrder inOrder = Mockito.inOrder(appendable);
+		inOrder.verify(appendable).append(sequence, 0, 2);
+		inOrder.verify(appendable).append("\\\"");
+		inOrder.verify(appendable).append(sequence, 3, 5);
+		Mockito.verifyNoMoreInteractions(appendable);
+	}
+	
+	@Test
+	public void testIndexOfEscape() {
+		final Escaper escaper = jsonEscaper();
+		Assert.assertEquals(-1, escaper.indexOfEscape("abcdefghijklmnopq", 0, 17));
+		Assert.assertEquals(13, escaper.indexOfEscape("abcdefghijklm\\opq", 0, 17));
+		Assert.assertEquals(3, escaper.indexOfEscape("abc\\", 0, 4));
+		Assert.assertEquals(-1, escaper.indexOfEscape("abc\\", 0, 3));
+		Assert.assertEquals(-1, escaper.indexOfEscape("\\abcdefghijklmno", 1, 16));
+		Assert.assertEquals(9, escaper.indexOfEscape("\\abcdefgh\u2028", 1, 10));
+	}
+	
+	@Test
+	public void testIndexOfEscapeMatchesScalarScan() {
+		assertScanMatchesScalar(jsonEscaper(), "abc\"\\\n\u0000\u001f \u007f\u00ff\u2028\u2029\u8000\uffff");
+		assertScanMatchesScalar(new EscaperBuilder()
+				.escape('<', "&lt;")
+				.escape('>', "&gt;")
+				.escape('&', "&amp;")
+				.escape('"', "&quot;")
+				.escape('\'', "&#39;")
+				.build(), "abc<>&\"'=;\u0000\u003b\u00bc\u013c\u263c\uffff");
+		assertScanMatchesScalar(new EscaperBuilder()
+				.escape('a', 'z', character -> "?")
+				.build(), "09AZaz{|\u0000\u0061\u007a\u0161");
+		assertScanMatchesScalar(new EscaperBuilder()
+				.escape('\u0000', '\u00ff', character -> "?")
+				.escape('\ud800', '\udfff', character -> "?")
+				.build(), "a\u00ff\u0100\ud7ff\ud800\udbff\udc00\udfff\ue000");
+		assertScanMatchesScalar(new EscaperBuilder().build(), "ab\u0000\uffff");
+	}
+	
+	@Test
+	public void testLaterMappingReplacesEarlier() throws IOException {
+		final Escaper escaper = new EscaperBuilder().escape('a', "1").escape('a', "2").build();
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape("aba", builder);
+		Assert.assertEquals("2b2", builder.toString());
+	}
+	
+	@Test
+	public void testBuiltEscaperIsUnaffectedByBuilder() throws IOException {
+		final EscaperBuilder escaperBuilder = new EscaperBuilder().escape('a', "1");
+		final Escaper escaper = escaperBuilder.build();
+		escaperBuilder.escape('b', "2");
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape("ab", builder);
+		Assert.assertEquals("1b", builder.toString());
+	}
+	
+	@Test
+	public void testEmptyBuilder() throws IOException {
+		final Escaper escaper = new EscaperBuilder().build();
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape("<\u0000\uffff>", builder);
+		Assert.assertEquals("<\u0000\uffff>", builder.toString());
+		Assert.assertFalse(escaper.requiresEscape('\u0000'));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testEscapeRangeWithFirstAfterLast() {
+		new EscaperBuilder().escape('b', 'a', character -> "x");
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testEscapeRangeWithEndAfterLength() throws IOException {
+		jsonEscaper().escape("abc", 1, 4, new StringBuilder());
+	}
+	
+}
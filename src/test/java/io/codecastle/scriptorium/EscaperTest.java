@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Escaper;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class EscaperTest {
+	
+	private static final Escaper AMPERSAND_ESCAPER = new Escaper() {
+		
+		@Override
+		public void escape(final char character, final Appendable appendable) throws IOException {
+			if (character == '&') {
+				appendable.append("&amp;");
+			} else {
+				appendable.append(character);
+			}
+		}
+		
+		@Override
+		public boolean requiresEscape(final char character) {
+			return character == '&';
+		}
+		
+	};
+	
+	@Test
+	public void testDefaultRequiresEscape() {
+		final Escaper escaper = (character, appendable) -> appendable.append(character);
+		Assert.assertTrue(escaper.requiresEscape('a'));
+		Assert.assertTrue(escaper.requiresEscape('&'));
+	}
+	
+	@Test
+	public void testIndexOfEscape() {
+		Assert.assertEquals(2, AMPERSAND_ESCAPER.indexOfEscape("ab&c&", 0, 5));
+		Assert.assertEquals(4, AMPERSAND_ESCAPER.indexOfEscape("ab&c&", 3, 5));
+		Assert.assertEquals(-1, AMPERSAND_ESCAPER.indexOfEscape("ab&c&", 0, 2));
+		Assert.assertEquals(-1, AMPERSAND_ESCAPER.indexOfEscape("ab&c&", 1, 1));
+	}
+	
+	@Test
+	public void testEscapeSequenceWithDefaultRequiresEscape() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Escaper escaper = (character, appendable) -> appendable.append(Character.toUpperCase(character));
+		escaper.escape("a&b", builder);
+		Assert.assertEquals("A&B", builder.toString());
+	}
+	
+	@Test
+	public void testEscapeSequence() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		AMPERSAND_ESCAPER.escape("fish & chips && peas", builder);
+		Assert.assertEquals("fish &amp; chips &amp;&amp; peas", builder.toString());
+	}
+	
+	@Test
+	public void testEscapeRange() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		AMPERSAND_ESCAPER.escape("x&y&z", 1, 4, builder);
+		Assert.assertEquals("&amp;y&amp;", builder.toString());
+	}
+	
+	@Test
+	public void testEscapeEmptyRange() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		AMPERSAND_ESCAPER.escape("abc", 2, 2, appendable);
+		Mockito.verifyZeroInteractions(appendable);
+	}
+	
+	@Test
+	public void testEscapeCopiesUnescapedRuns() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		final String sequence = "ab&cd&&ef";
+		AMPERSAND_ESCAPER.escape(sequence, appendable);
+		final InOrder inOrder = Mockito.inOrder(appendable);
+		inOrder.verify(appendable).append(sequence, 0, 2);
+		inOrder.verify(appendable).append("&amp;");
+		inOrder.verify(appendable).append(sequence, 3, 5);
+		inOrder.verify(appendable, Mockito.times(2)).append("&amp;");
+		inOrder.verify(appendable).append(sequence, 7, 9);
+		Mockito.verifyNoMoreInteractions(appendable);
+	}
+	
+	@Test
+	public void testEscapeWithoutEscapableCharacters() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		final String sequence = "plain text";
+		AMPERSAND_ESCAPER.escape(sequence, appendable);
+		Mockito.verify(appendable).append(sequence, 0, sequence.length());
+		Mockito.verifyNoMoreInteractions(appendable);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testEscapeRangeWithNegativeStart() throws IOException {
+		AMPERSAND_ESCAPER.escape("abc", -1, 2, new StringBuilder());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testEscapeRangeWithStartAfterEnd() throws IOException {
+		AMPERSAND_ESCAPER.escape("abc", 2, 1, new StringBuilder());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testEscapeRangeWithEndAfterLength() throws IOException {
+		AMPERSAND_ESCAPER.escape("abc", 0, 4, new StringBuilder());
+	}
+	
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.jfr.FlightEvents;
+import io.codecastle.scriptorium.jfr.NodeEvents;
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class FlightEventsTest {
+	
+	private static final class Node extends AbstractInscribable<Node, Node, Node> {
+		
+		Node(final NodeStack stack) {
+			super(stack);
+		}
+		
+		Node child() throws IOException {
+			return openChild(new Node(stack()));
+		}
+		
+		@Override
+		protected Node inscribed() {
+			return this;
+		}
+		
+	}
+	
+	private interface Action {
+		
+		void run() throws IOException;
+		
+	}
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	@Before
+	public void assumeAvailable() {
+		Assume.assumeTrue(FlightEvents.isAvailable());
+	}
+	
+	private List<RecordedEvent> record(final Duration threshold, final Action action) throws IOException {
+		final Path path = folder.newFile().toPath();
+		try (Recording recording = new Recording()) {
+			for (String name : new String[] {"Document", "Node", "Flush", "Escape"}) {
+				recording.enable(FlightEvents.NAME_PREFIX + name).withThreshold(threshold);
+			}
+			recording.start();
+			action.run();
+			recording.stop();
+			recording.dump(path);
+		}
+		return RecordingFile.readAllEvents(path);
+	}
+	
+	private static Map<String, Integer> count(final List<RecordedEvent> events) {
+		final Map<String, Integer> counts = new HashMap<>();
+		for (RecordedEvent event : events) {
+			counts.merge(event.getEventType().getName().substring(FlightEvents.NAME_PREFIX.length()), 1, Integer::sum);
+		}
+		return counts;
+	}
+	
+	private static void render() throws IOException {
+		final Node root = new Node(new NodeStack(new NodeEvents())).open(null);
+		root.child().child().then().then().child();
+		root.close();
+		final Escaper escaper = new EscaperBuilder().escape('<', "&lt;").build();
+		final StringBuilder builder = new StringBuilder();
+		final char[] characters = new char[FlightEvents.LARGE_RUN];
+		Arrays.fill(characters, '<');
+		escaper.escape(new String(characters), builder);
+		escaper.escape("<short>", builder);
+		try (Utf8Sink sink = new Utf8Sink(new ByteArrayOutputStream())) {
+			sink.append(builder).flush();
+		}
+	}
+	
+	@Test
+	public void testRecordsEvents() throws IOException {
+		final Map<String, Integer> counts = count(record(Duration.ZERO, FlightEventsTest::render));
+		Assert.assertEquals(Integer.valueOf(1), counts.get("Document"));
+		Assert.assertEquals(Integer.valueOf(3), counts.get("Node"));
+		Assert.assertEquals(Integer.valueOf(1), counts.get("Flush"));
+		Assert.assertEquals(Integer.valueOf(1), counts.get("Escape"));
+	}
+	
+	@Test
+	public void testThresholdDropsShortEvents() throws IOException {
+		Assert.assertTrue(count(record(Duration.ofHours(1), FlightEventsTest::render)).isEmpty());
+	}
+	
+	@Test
+	public void testEventsNotBegunWithoutRecording() {
+		Assert.assertNull(FlightEvents.beginNode(Node.class, 1));
+		Assert.assertNull(FlightEvents.beginEscape(Escaper.class, 1));
+		FlightEvents.end(null);
+	}
+	
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.scribe.FragmentCache;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class FragmentCacheTest {
+	
+	private static IOConsumer<Appendable> renderer(final String fragment, final AtomicInteger calls) {
+		return appendable -> {
+			calls.incrementAndGet();
+			appendable.append(fragment.substring(0, 1)).append(fragment, 1, fragment.length());
+		};
+	}
+	
+	@Test
+	public void testHitReplaysFragmentInOneAppend() throws IOException {
+		final FragmentCache cache = new FragmentCache(1024);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder first = new StringBuilder();
+		cache.render("nav", 1, renderer("<nav/>", calls), first);
+		Assert.assertEquals("<nav/>", first.toString());
+		final Appendable second = Mockito.mock(Appendable.class);
+		cache.render("nav", 1, renderer("<nav/>", calls), second);
+		Mockito.verify(second).append("<nav/>");
+		Mockito.verifyNoMoreInteractions(second);
+		Assert.assertEquals(1, calls.get());
+		Assert.assertEquals(1, cache.hitCount());
+		Assert.assertEquals(1, cache.missCount());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(6, cache.length());
+	}
+	
+	@Test
+	public void testNewVersionRendersAgain() throws IOException {
+		final FragmentCache cache = new FragmentCache(1024);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder builder = new StringBuilder();
+		cache.render("nav", 1, renderer("old", calls), builder);
+		cache.render("nav", 2, renderer("new", calls), builder);
+		cache.render("nav", 2, renderer("new", calls), builder);
+		Assert.assertEquals("oldnewnew", builder.toString());
+		Assert.assertEquals(2, calls.get());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(3, cache.length());
+	}
+	
+	@Test
+	public void testOldVersionDoesNotReplaceNewVersion() throws IOException {
+		final FragmentCache cache = new FragmentCache(1024);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder builder = new StringBuilder();
+		cache.render("nav", 2, renderer("new", calls), builder);
+		cache.render("nav", 1, renderer("old", calls), builder);
+		cache.render("nav", 2, renderer("new", calls), builder);
+		Assert.assertEquals("newoldnew", builder.toString());
+		Assert.assertEquals(2, calls.get());
+		Assert.assertEquals(1, cache.hitCount());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(3, cache.length());
+	}
+	
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws IOException {
+		final FragmentCache cache = new FragmentCache(10);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder builder = new StringBuilder();
+		cache.render("a", 0, renderer("aaaa", calls), builder);
+		cache.render("b", 0, renderer("bbbb", calls), builder);
+		cache.render("a", 0, renderer("aaaa", calls), builder);
+		cache.render("c", 0, renderer("cccc", calls), builder);
+		Assert.assertEquals(1, cache.evictionCount());
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(8, cache.length());
+		cache.render("a", 0, renderer("aaaa", calls), builder);
+		cache.render("b", 0, renderer("bbbb", calls), builder);
+		Assert.assertEquals(4, calls.get());
+	}
+	
+	@Test
+	public void testOversizedFragmentIsNotCached() throws IOException {
+		final FragmentCache cache = new FragmentCache(3);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder builder = new StringBuilder();
+		cache.render("big", 0, renderer("abcd", calls), builder);
+		cache.render("big", 0, renderer("abcd", calls), builder);
+		Assert.assertEquals("abcdabcd", builder.toString());
+		Assert.assertEquals(2, calls.get());
+		Assert.assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testInvalidateAndClear() throws IOException {
+		final FragmentCache cache = new FragmentCache(1024);
+		final AtomicInteger calls = new AtomicInteger();
+		final StringBuilder builder = new StringBuilder();
+		cache.render("a", 0, renderer("aa", calls), builder);
+		cache.render("b", 0, renderer("bb", calls), builder);
+		cache.invalidate("a");
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.length());
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.length());
+	}
+	
+	@Test(timeout = 10000)
+	public void testSlowRenderOfOldVersionDoesNotReplaceNewVersion() throws Exception {
+		final FragmentCache cache = new FragmentCache(1024);
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch rendering = new CountDownLatch(1);
+		final CountDownLatch replaced = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<String> slow = executor.submit(() -> {
+				final StringBuilder builder = new StringBuilder();
+				cache.render("nav", 1, appendable -> {
+					rendering.countDown();
+					try {
+						replaced.await();
+					} catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+					appendable.append("old");
+				}, builder);
+				return builder.toString();
+			});
+			rendering.await();
+			final StringBuilder builder = new StringBuilder();
+			cache.render("nav", 2, renderer("new", calls), builder);
+			replaced.countDown();
+			Assert.assertEquals("old", slow.get());
+			cache.render("nav", 2, renderer("new", calls), builder);
+			Assert.assertEquals("newnew", builder.toString());
+			Assert.assertEquals(1, calls.get());
+			Assert.assertEquals(3, cache.length());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testConcurrentRendering() throws Exception {
+		final FragmentCache cache = new FragmentCache(64);
+		final AtomicInteger calls = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for (int task = 0; task < 16; task++) {
+				results.add(executor.submit(() -> {
+					final StringBuilder builder = new StringBuilder();
+					for (int index = 0; index < 1000; index++) {
+						final String key = "key" + index % 20;
+						cache.render(key, 0, renderer(key + ";", calls), builder);
+					}
+					return builder.toString();
+				}));
+			}
+			for (Future<String> result : results) {
+				final String output = result.get();
+				for (int index = 0, offset = 0; index < 1000; index++) {
+					final String expected = "key" + index % 20 + ";";
+					Assert.assertTrue(output.startsWith(expected, offset));
+					offset += expected.length();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(16000, cache.hitCount() + cache.missCount());
+		Assert.assertTrue(cache.length() <= 64);
+	}
+	
+}
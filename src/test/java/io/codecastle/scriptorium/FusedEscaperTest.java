@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Escaper;
+import io.codecastle.scriptorium.scribe.EscaperBuilder;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class FusedEscaperTest {
+	
+	private static final Escaper JSON = new EscaperBuilder()
+			.escape('"', "\\\"")
+			.escape('\\', "\\\\")
+			.escape('\n', "\\n")
+			.escape('\u2028', "\\u2028")
+			.build();
+			
+	private static final Escaper HTML = new EscaperBuilder()
+			.escape('<', "&lt;")
+			.escape('>', "&gt;")
+			.escape('&', "&amp;")
+			.escape('"', "&quot;")
+			.escape('\\', "&#92;")
+			.escape('\u00a0', "&nbsp;")
+			.escape('\u2029', "&#8233;")
+			.build();
+			
+	/**
+	 * An escaper that is not built by {@link EscaperBuilder}, which replaces vowels
+	 * and the Greek small letter alpha.
+	 */
+	private static final Escaper VOWELS = new Escaper() {
+		
+		@Override
+		public void escape(final char character, final Appendable appendable) throws IOException {
+			if (requiresEscape(character)) {
+				appendable.append('<').append(character).append('>');
+			} else {
+				appendable.append(character);
+			}
+		}
+		
+		@Override
+		public boolean requiresEscape(final char character) {
+			return "aeiou\u03b1".indexOf(character) >= 0;
+		}
+		
+	};
+	
+	private static String sequentially(final Escaper inner, final Escaper outer, final String string) throws IOException {
+		final StringBuilder escaped = new StringBuilder();
+		inner.escape(string, escaped);
+		final StringBuilder builder = new StringBuilder();
+		outer.escape(escaped, builder);
+		return builder.toString();
+	}
+	
+	private static String escape(final Escaper escaper, final String string) throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		escaper.escape(string, builder);
+		return builder.toString();
+	}
+	
+	private static String random(final Random random, final int length) {
+		final String characters = "abc\"\\\n<>&\u00a0\u03b1\u2028\u2029xyz ";
+		final StringBuilder builder = new StringBuilder(length);
+		for (int index = 0; index < length; index++) {
+			builder.append(characters.charAt(random.nextInt(characters.length())));
+		}
+		return builder.toString();
+	}
+	
+	@Test
+	public void testFusedTables() throws IOException {
+		final Escaper fused = JSON.andThen(HTML);
+		Assert.assertEquals("{&#92;&quot;a&#92;&#92;&#92;&quot;&lt;b&gt;&#92;u2028&#8233;&#92;&quot;}", escape(fused, "{\"a\\\"<b>\u2028\u2029\"}"));
+		final Random random = new Random(19);
+		for (int test = 0; test < 100; test++) {
+			final String string = random(random, 40);
+			Assert.assertEquals(sequentially(JSON, HTML, string), escape(fused, string));
+			Assert.assertEquals(sequentially(HTML, JSON, string), escape(HTML.andThen(JSON), string));
+		}
+	}
+	
+	@Test
+	public void testComposedEscapers() throws IOException {
+		final Random random = new Random(19);
+		for (int test = 0; test < 100; test++) {
+			final String string = random(random, 40);
+			Assert.assertEquals(sequentially(VOWELS, HTML, string), escape(VOWELS.andThen(HTML), string));
+			Assert.assertEquals(sequentially(JSON, VOWELS, string), escape(JSON.andThen(VOWELS), string));
+		}
+	}
+	
+	@Test
+	public void testComposedEscaperRange() throws IOException {
+		final Escaper composed = VOWELS.andThen(HTML);
+		final String string = "x\u03b1\u03b1b\u03b1<\u2029\u03b1y";
+		final StringBuilder expected = new StringBuilder();
+		for (int index = 1; index < string.length() - 1; index++) {
+			composed.escape(string.charAt(index), expected);
+		}
+		final StringBuilder builder = new StringBuilder();
+		composed.escape(string, 1, string.length() - 1, builder);
+		Assert.assertEquals(expected.toString(), builder.toString());
+		Assert.assertEquals("&lt;\u03b1&gt;&lt;\u03b1&gt;b&lt;\u03b1&gt;&lt;&#8233;&lt;\u03b1&gt;", builder.toString());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testComposedEscaperRangeOutOfBounds() throws IOException {
+		VOWELS.andThen(HTML).escape("abc", 2, 1, new StringBuilder());
+	}
+	
+	@Test
+	public void testRequiresEscape() {
+		final Escaper fused = VOWELS.andThen(JSON);
+		Assert.assertTrue(fused.requiresEscape('a'));
+		Assert.assertTrue(fused.requiresEscape('"'));
+		Assert.assertTrue(fused.requiresEscape('\u03b1'));
+		Assert.assertTrue(fused.requiresEscape('\u2028'));
+		Assert.assertFalse(fused.requiresEscape('b'));
+		Assert.assertFalse(fused.requiresEscape('\u2029'));
+		Assert.assertEquals(3, fused.indexOfEscape("xyzaz", 0, 5));
+		Assert.assertEquals(-1, fused.indexOfEscape("xyz", 0, 3));
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testNullOuterEscaper() {
+		JSON.andThen(null);
+	}
+	
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Indenter;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class IndenterTest {
+	
+	@Test
+	public void testNewlineAndIndent() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Indenter indenter = new Indenter(builder, "  ", Indenter.Newline.LF);
+		builder.append("<a>");
+		indenter.push().newlineAndIndent();
+		builder.append("<b>");
+		indenter.push().newlineAndIndent();
+		builder.append("text");
+		indenter.pop().newlineAndIndent();
+		builder.append("</b>");
+		indenter.pop().newlineAndIndent();
+		builder.append("</a>");
+		Assert.assertEquals("<a>\n  <b>\n    text\n  </b>\n</a>", builder.toString());
+		Assert.assertEquals(0, indenter.depth());
+	}
+	
+	@Test
+	public void testCrlf() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Indenter indenter = new Indenter(builder, "\t", Indenter.Newline.CRLF);
+		indenter.newlineAndIndent().push().newlineAndIndent().push().indent();
+		Assert.assertEquals("\r\n\r\n\t\t\t", builder.toString());
+	}
+	
+	@Test
+	public void testDeepIndentation() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final Indenter indenter = new Indenter(builder, " ", Indenter.Newline.LF);
+		final StringBuilder expected = new StringBuilder();
+		for (int depth = 0; depth < 100; depth++) {
+			indenter.newlineAndIndent().push();
+			expected.append('\n');
+			for (int space = 0; space < depth; space++) {
+				expected.append(' ');
+			}
+		}
+		Assert.assertEquals(100, indenter.depth());
+		Assert.assertEquals(expected.toString(), builder.toString());
+	}
+	
+	@Test
+	public void testEachLineBreakIsOneAppend() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		final Indenter indenter = new Indenter(appendable, "    ", Indenter.Newline.LF);
+		indenter.push().push().newlineAndIndent();
+		Mockito.verify(appendable).append(Mockito.any(CharSequence.class), Mockito.eq(0), Mockito.eq(9));
+		Mockito.verifyNoMoreInteractions(appendable);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testPopAtZeroDepth() {
+		new Indenter(new StringBuilder(), "\t", Indenter.Newline.LF).pop();
+	}
+	
+	@Test
+	public void testCompact() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		final Indenter indenter = Indenter.compact(appendable);
+		Assert.assertTrue(indenter.isCompact());
+		indenter.push().newlineAndIndent().indent().pop().pop().newlineAndIndent();
+		Assert.assertEquals(0, indenter.depth());
+		Mockito.verifyZeroInteractions(appendable);
+	}
+	
+}
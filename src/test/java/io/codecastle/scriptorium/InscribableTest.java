@@ -6,12 +6,22 @@ package io.codecastle.scriptorium;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import io.codecastle.scriptorium.function.IOBiConsumer;
 import io.codecastle.scriptorium.function.IOConsumer;
+import io.codecastle.scriptorium.function.IODoubleObjConsumer;
+import io.codecastle.scriptorium.function.IOIntObjConsumer;
+import io.codecastle.scriptorium.function.IOLongObjConsumer;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -23,6 +33,81 @@ import org.mockito.Mockito;
  */
 public class InscribableTest {
 	
+	/**
+	 * A stub that calls consumers passed to {@link #with(IOConsumer)} and counts the calls.
+	 */
+	private static class CallingStubInscribable extends StubInscribable {
+		
+		private int withCount;
+		
+		@Override
+		public Inscribable with(IOConsumer consumer) throws IOException {
+			withCount++;
+			consumer.accept(this);
+			return this;
+		}
+		
+	}
+	
+	/**
+	 * A stub that calls bi-consumers passed to {@link #with(Object, IOBiConsumer)} and
+	 * collects their output.
+	 */
+	private static class SplicingStubInscribable extends StubInscribable {
+		
+		private final StringBuilder output = new StringBuilder();
+		private int withCount;
+		
+		@Override
+		public Inscribable with(Object element, IOBiConsumer biConsumer) throws IOException {
+			withCount++;
+			biConsumer.accept(element, this);
+			return this;
+		}
+		
+		IOBiConsumer<CharSequence, Object> splicer() {
+			return (fragment, inscribed) -> output.append(fragment);
+		}
+		
+	}
+	
+	/**
+	 * An iterator over a list that records whether it was closed.
+	 */
+	private static class CloseableIterator implements Iterator<Object>, AutoCloseable {
+		
+		private final Iterator<Object> iterator;
+		private boolean closed;
+		
+		CloseableIterator(final List<Object> elements) {
+			this.iterator = elements.iterator();
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+		
+		@Override
+		public Object next() {
+			return iterator.next();
+		}
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+		
+	}
+	
+	private static List<Object> threeElements() {
+		final List<Object> elements = new ArrayList<>(3);
+		elements.add(new Object());
+		elements.add(new Object());
+		elements.add(new Object());
+		return elements;
+	}
+	
 	@Test
 	public void testWithIfTrue() throws IOException {
 		final Inscribable inscribable = Mockito.spy(new StubInscribable());
@@ -177,4 +262,252 @@ public class InscribableTest {
 		Mockito.verifyZeroInteractions(consumer);
 	}
 	
+	@Test
+	public void testWithEachWithIntArray() throws IOException {
+		final CallingStubInscribable inscribable = new CallingStubInscribable();
+		final List<Object> values = new ArrayList<>();
+		final IOIntObjConsumer<Object> consumer = (value, inscribed) -> {
+			Assert.assertEquals(inscribable, inscribed);
+			values.add(value);
+		};
+		final Inscribable result = inscribable.withEach(new int[] {3, 1, 2}, consumer);
+		Assert.assertEquals(inscribable, result);
+		Assert.assertEquals(3, inscribable.withCount);
+		Assert.assertEquals(Arrays.asList(3, 1, 2), values);
+	}
+	
+	@Test
+	public void testWithEachWithLongArray() throws IOException {
+		final CallingStubInscribable inscribable = new CallingStubInscribable();
+		final List<Object> values = new ArrayList<>();
+		final IOLongObjConsumer<Object> consumer = (value, inscribed) -> values.add(value);
+		final Inscribable result = inscribable.withEach(new long[] {Long.MAX_VALUE, -1L}, consumer);
+		Assert.assertEquals(inscribable, result);
+		Assert.assertEquals(2, inscribable.withCount);
+		Assert.assertEquals(Arrays.asList(Long.MAX_VALUE, -1L), values);
+	}
+	
+	@Test
+	public void testWithEachWithDoubleArray() throws IOException {
+		final CallingStubInscribable inscribable = new CallingStubInscribable();
+		final List<Object> values = new ArrayList<>();
+		final IODoubleObjConsumer<Object> consumer = (value, inscribed) -> values.add(value);
+		final Inscribable result = inscribable.withEach(new double[] {0.5, Double.NaN}, consumer);
+		Assert.assertEquals(inscribable, result);
+		Assert.assertEquals(2, inscribable.withCount);
+		Assert.assertEquals(Arrays.asList(0.5, Double.NaN), values);
+	}
+	
+	@Test
+	public void testWithEachWithEmptyAndNullPrimitiveArrays() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOIntObjConsumer intConsumer = Mockito.mock(IOIntObjConsumer.class);
+		final IOLongObjConsumer longConsumer = Mockito.mock(IOLongObjConsumer.class);
+		final IODoubleObjConsumer doubleConsumer = Mockito.mock(IODoubleObjConsumer.class);
+		Assert.assertEquals(inscribable, inscribable.withEach(new int[0], intConsumer));
+		Assert.assertEquals(inscribable, inscribable.withEach((int[]) null, intConsumer));
+		Assert.assertEquals(inscribable, inscribable.withEach(new long[0], longConsumer));
+		Assert.assertEquals(inscribable, inscribable.withEach((long[]) null, longConsumer));
+		Assert.assertEquals(inscribable, inscribable.withEach(new double[0], doubleConsumer));
+		Assert.assertEquals(inscribable, inscribable.withEach((double[]) null, doubleConsumer));
+		Mockito.verify(inscribable, Mockito.never()).with(Mockito.any(IOConsumer.class));
+		Mockito.verifyZeroInteractions(intConsumer, longConsumer, doubleConsumer);
+	}
+	
+	@Test
+	public void testWithEachWithIterator() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final List<Object> elements = threeElements();
+		final Iterator<Object> iterator = elements.iterator();
+		final Inscribable result = inscribable.withEach(iterator, consumer);
+		Assert.assertEquals(inscribable, result);
+		final InOrder inOrder = Mockito.inOrder(inscribable);
+		inOrder.verify(inscribable).withEach(iterator, consumer);
+		inOrder.verify(inscribable).with(elements.get(0), consumer);
+		inOrder.verify(inscribable).with(elements.get(1), consumer);
+		inOrder.verify(inscribable).with(elements.get(2), consumer);
+		Mockito.verifyNoMoreInteractions(inscribable);
+		Mockito.verifyZeroInteractions(consumer);
+	}
+	
+	@Test
+	public void testWithEachWithNullIterator() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final Inscribable result = inscribable.withEach((Iterator<Object>) null, consumer);
+		Assert.assertEquals(inscribable, result);
+		Mockito.verify(inscribable).withEach((Iterator<Object>) null, consumer);
+		Mockito.verifyNoMoreInteractions(inscribable);
+		Mockito.verifyZeroInteractions(consumer);
+	}
+	
+	@Test
+	public void testWithEachClosesCloseableIterator() throws IOException {
+		final Inscribable inscribable = new StubInscribable();
+		final CloseableIterator iterator = new CloseableIterator(threeElements());
+		inscribable.withEach(iterator, Mockito.mock(IOBiConsumer.class));
+		Assert.assertTrue(iterator.closed);
+		Assert.assertFalse(iterator.hasNext());
+	}
+	
+	@Test
+	public void testWithEachClosesCloseableIteratorOnException() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final IOException exception = new IOException();
+		final List<Object> elements = threeElements();
+		Mockito.doThrow(exception).when(inscribable).with(elements.get(1), consumer);
+		final CloseableIterator iterator = new CloseableIterator(elements);
+		try {
+			inscribable.withEach(iterator, consumer);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertSame(exception, e);
+		}
+		Assert.assertTrue(iterator.closed);
+		Assert.assertTrue(iterator.hasNext());
+	}
+	
+	@Test
+	public void testWithEachWithSpliterator() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final List<Object> elements = threeElements();
+		final Spliterator<Object> spliterator = elements.spliterator();
+		final Inscribable result = inscribable.withEach(spliterator, consumer);
+		Assert.assertEquals(inscribable, result);
+		final InOrder inOrder = Mockito.inOrder(inscribable);
+		inOrder.verify(inscribable).withEach(spliterator, consumer);
+		inOrder.verify(inscribable).with(elements.get(0), consumer);
+		inOrder.verify(inscribable).with(elements.get(1), consumer);
+		inOrder.verify(inscribable).with(elements.get(2), consumer);
+		Mockito.verifyNoMoreInteractions(inscribable);
+		Mockito.verifyZeroInteractions(consumer);
+	}
+	
+	@Test
+	public void testWithEachWithStream() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final List<Object> elements = threeElements();
+		final AtomicBoolean closed = new AtomicBoolean();
+		final Stream<Object> stream = elements.stream().onClose(() -> closed.set(true));
+		final Inscribable result = inscribable.withEach(stream, consumer);
+		Assert.assertEquals(inscribable, result);
+		final InOrder inOrder = Mockito.inOrder(inscribable);
+		inOrder.verify(inscribable).with(elements.get(0), consumer);
+		inOrder.verify(inscribable).with(elements.get(1), consumer);
+		inOrder.verify(inscribable).with(elements.get(2), consumer);
+		Assert.assertTrue(closed.get());
+	}
+	
+	@Test
+	public void testWithEachWithStreamIsLazy() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final List<Object> rendered = new ArrayList<>();
+		final List<Object> pulled = new ArrayList<>();
+		Mockito.doAnswer(invocation -> {
+			rendered.add(invocation.getArgument(0));
+			Assert.assertEquals(pulled, rendered);
+			return inscribable;
+		}).when(inscribable).with(Mockito.any(), Mockito.eq(consumer));
+		inscribable.withEach(Stream.iterate(0, previous -> previous + 1).peek(pulled::add).limit(5), consumer);
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), rendered);
+	}
+	
+	@Test
+	public void testWithEachClosesStreamOnException() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final IOException exception = new IOException();
+		final List<Object> elements = threeElements();
+		Mockito.doThrow(exception).when(inscribable).with(elements.get(0), consumer);
+		final AtomicBoolean closed = new AtomicBoolean();
+		try {
+			inscribable.withEach(elements.stream().onClose(() -> closed.set(true)), consumer);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertSame(exception, e);
+		}
+		Assert.assertTrue(closed.get());
+	}
+	
+	@Test
+	public void testWithEachWithNullStream() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer consumer = Mockito.mock(IOBiConsumer.class);
+		final Inscribable result = inscribable.withEach((Stream<Object>) null, consumer);
+		Assert.assertEquals(inscribable, result);
+		Mockito.verify(inscribable).withEach((Stream<Object>) null, consumer);
+		Mockito.verifyNoMoreInteractions(inscribable);
+		Mockito.verifyZeroInteractions(consumer);
+	}
+	
+	@Test
+	public void testWithEachParallelPreservesOrder() throws IOException {
+		final SplicingStubInscribable inscribable = new SplicingStubInscribable();
+		final List<Integer> elements = new ArrayList<>();
+		final StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < 1000; index++) {
+			elements.add(index);
+			expected.append('<').append(index).append('>');
+		}
+		final IOBiConsumer<Integer, Appendable> renderer = (element, appendable) -> appendable.append('<').append(element.toString()).append('>');
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final Inscribable result = inscribable.withEachParallel(elements, renderer, inscribable.splicer(), pool);
+			Assert.assertEquals(inscribable, result);
+		} finally {
+			pool.shutdown();
+		}
+		Assert.assertEquals(expected.toString(), inscribable.output.toString());
+		Assert.assertEquals(elements.size(), inscribable.withCount);
+	}
+	
+	@Test
+	public void testWithEachParallelRethrowsRendererException() throws IOException, InterruptedException {
+		final SplicingStubInscribable inscribable = new SplicingStubInscribable();
+		final List<Integer> elements = new ArrayList<>();
+		final StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < 1000; index++) {
+			elements.add(index);
+			expected.append('<').append(index).append('>');
+		}
+		final IOException exception = new IOException();
+		final AtomicInteger rendered = new AtomicInteger();
+		final IOBiConsumer<Integer, Appendable> renderer = (element, appendable) -> {
+			rendered.incrementAndGet();
+			if (element == 500) throw exception;
+			appendable.append('<').append(element.toString()).append('>');
+		};
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			inscribable.withEachParallel(elements, renderer, inscribable.splicer(), pool);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertSame(exception, e);
+		} finally {
+			pool.shutdown();
+		}
+		Assert.assertEquals(expected.substring(0, expected.indexOf("<500>")), inscribable.output.toString());
+		final int calls = rendered.get();
+		Thread.sleep(100);
+		Assert.assertEquals(calls, rendered.get());
+	}
+	
+	@Test
+	public void testWithEachParallelWithNullList() throws IOException {
+		final Inscribable inscribable = Mockito.spy(new StubInscribable());
+		final IOBiConsumer renderer = Mockito.mock(IOBiConsumer.class);
+		final IOBiConsumer splicer = Mockito.mock(IOBiConsumer.class);
+		final Inscribable result = inscribable.withEachParallel(null, renderer, splicer);
+		Assert.assertEquals(inscribable, result);
+		Mockito.verify(inscribable).withEachParallel(null, renderer, splicer);
+		Mockito.verify(inscribable).withEachParallel(null, renderer, splicer, ForkJoinPool.commonPool());
+		Mockito.verifyNoMoreInteractions(inscribable);
+		Mockito.verifyZeroInteractions(renderer, splicer);
+	}
+	
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.metrics.InMemoryMetricRegistry;
+import io.codecastle.scriptorium.metrics.InstrumentedAppendable;
+import io.codecastle.scriptorium.metrics.InstrumentedChannel;
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.SortedMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class InstrumentedAppendableTest {
+	
+	@Test
+	public void testCountsAppends() throws IOException {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		final StringBuilder builder = new StringBuilder();
+		final InstrumentedAppendable appendable = new InstrumentedAppendable(builder, registry, "page");
+		Assert.assertSame(appendable, appendable.append('<').append("div").append("x>y", 1, 2).append(null));
+		Assert.assertEquals("<div>null", builder.toString());
+		Assert.assertEquals(4, registry.sum("page" + InstrumentedAppendable.APPENDS));
+		Assert.assertEquals(9, registry.sum("page" + InstrumentedAppendable.CHARACTERS));
+		Assert.assertTrue(registry.sum("page" + InstrumentedAppendable.NANOS) >= 0);
+	}
+	
+	@Test
+	public void testFlushAndClosePassThrough() throws IOException {
+		final Writer writer = Mockito.mock(Writer.class);
+		final InstrumentedAppendable appendable = new InstrumentedAppendable(writer, new InMemoryMetricRegistry(), "page");
+		appendable.flush();
+		appendable.close();
+		Mockito.verify(writer).flush();
+		Mockito.verify(writer).close();
+	}
+	
+	@Test
+	public void testDoesNotCountFailedAppends() throws IOException {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		final Appendable failing = Mockito.mock(Appendable.class);
+		Mockito.when(failing.append('x')).thenThrow(new IOException());
+		final InstrumentedAppendable appendable = new InstrumentedAppendable(failing, registry, "page");
+		try {
+			appendable.append('x');
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals(0, registry.sum("page" + InstrumentedAppendable.APPENDS));
+		}
+	}
+	
+	@Test
+	public void testCountsBytesWritten() throws IOException {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		final InstrumentedChannel channel = new InstrumentedChannel(Channels.newChannel(stream), registry, "out");
+		try (Utf8Sink sink = new Utf8Sink(channel, 16)) {
+			for (int index = 0; index < 10; index++) {
+				sink.append("caf\u00e9 ");
+			}
+		}
+		Assert.assertFalse(channel.isOpen());
+		Assert.assertEquals(60, stream.size());
+		Assert.assertEquals("caf\u00e9 caf\u00e9 ", new String(stream.toByteArray(), 0, 12, StandardCharsets.UTF_8));
+		final SortedMap<String, Long> snapshot = registry.snapshot();
+		Assert.assertEquals(Long.valueOf(60), snapshot.get("out" + InstrumentedChannel.BYTES));
+		Assert.assertTrue(snapshot.get("out" + InstrumentedChannel.WRITES) >= 4);
+		Assert.assertTrue(snapshot.containsKey("out" + InstrumentedChannel.NANOS));
+	}
+	
+	@Test
+	public void testRegistryReturnsSameCounter() {
+		final InMemoryMetricRegistry registry = new InMemoryMetricRegistry();
+		registry.counter("a").add(2);
+		registry.counter("a").increment();
+		Assert.assertEquals(3, registry.sum("a"));
+		Assert.assertEquals(0, registry.sum("b"));
+		Assert.assertEquals(1, registry.snapshot().size());
+	}
+	
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.scribe.Whitespace;
+import io.codecastle.scriptorium.sink.MappedFileSink;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class MappedFileSinkTest {
+	
+	private static final String TEXT = "<doc>caf\u00e9 \u4e2d\u6587 \ud83d\ude00</doc>";
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	private static String read(final Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void testWriteWithinOneWindow() throws IOException {
+		final Path path = folder.newFile().toPath();
+		try (MappedFileSink sink = MappedFileSink.open(path)) {
+			Assert.assertEquals(sink, sink.append(TEXT));
+		}
+		Assert.assertEquals(TEXT, read(path));
+	}
+	
+	@Test
+	public void testWriteAcrossWindows() throws IOException {
+		final Path path = folder.newFile().toPath();
+		final StringBuilder expected = new StringBuilder();
+		try (MappedFileSink sink = MappedFileSink.open(path, 7)) {
+			for (int index = 0; index < 50; index++) {
+				sink.append(TEXT).append('\n');
+				expected.append(TEXT).append('\n');
+			}
+		}
+		Assert.assertEquals(expected.toString(), read(path));
+	}
+	
+	@Test
+	public void testOpenTruncatesExistingFile() throws IOException {
+		final Path path = folder.newFile().toPath();
+		Files.write(path, new byte[1000]);
+		try (MappedFileSink sink = MappedFileSink.open(path)) {
+			sink.append("short");
+		}
+		Assert.assertEquals("short", read(path));
+	}
+	
+	@Test
+	public void testStartsAtChannelPosition() throws IOException {
+		final Path path = folder.newFile().toPath();
+		Files.write(path, "head:".getBytes(StandardCharsets.UTF_8));
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		try (MappedFileSink sink = new MappedFileSink(channel, 8)) {
+			sink.append(TEXT);
+		}
+		Assert.assertFalse(channel.isOpen());
+		Assert.assertEquals("head:" + TEXT, read(path));
+	}
+	
+	@Test
+	public void testFlushAndForce() throws IOException {
+		final Path path = folder.newFile().toPath();
+		try (MappedFileSink sink = MappedFileSink.open(path, 16)) {
+			sink.append("abc");
+			sink.flush();
+			sink.append("def");
+			sink.force();
+			sink.append("ghi");
+		}
+		Assert.assertEquals("abcdefghi", read(path));
+	}
+	
+	@Test
+	public void testWithWhitespace() throws IOException {
+		final Path path = folder.newFile().toPath();
+		try (MappedFileSink sink = MappedFileSink.open(path, 64)) {
+			new Whitespace(sink).spaces(300).newline();
+		}
+		Assert.assertEquals(301, Files.size(path));
+	}
+	
+	@Test
+	public void testEmpty() throws IOException {
+		final Path path = folder.newFile().toPath();
+		MappedFileSink.open(path).close();
+		Assert.assertEquals(0, Files.size(path));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testWindowTooSmall() throws IOException {
+		MappedFileSink.open(folder.newFile().toPath(), 3);
+	}
+	
+}
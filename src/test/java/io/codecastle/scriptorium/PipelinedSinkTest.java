@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.PipelinedSink;
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class PipelinedSinkTest {
+	
+	/**
+	 * A writer that records flushes and closes, and fails after a number of characters.
+	 */
+	private static class RecordingWriter extends StringWriter {
+		
+		private final int limit;
+		private int flushes;
+		private boolean closed;
+		
+		RecordingWriter(final int limit) {
+			this.limit = limit;
+		}
+		
+		@Override
+		public void write(final char[] characters, final int offset, final int length) {
+			if (getBuffer().length() + length > limit) throw new IllegalStateException("limit");
+			super.write(characters, offset, length);
+		}
+		
+		@Override
+		public void flush() {
+			flushes++;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+		
+	}
+	
+	private static String document(final int lines) {
+		final StringBuilder builder = new StringBuilder();
+		for (int index = 0; index < lines; index++) {
+			builder.append("<line number=\"").append(index).append("\">caf\u00e9 \u4e2d\u6587 \ud83d\ude00</line>\n");
+		}
+		return builder.toString();
+	}
+	
+	@Test
+	public void testCapacityIsRoundedUpToPowerOfTwo() throws IOException {
+		try (PipelinedSink sink = new PipelinedSink(new StringWriter(), 100)) {
+			Assert.assertEquals(128, sink.capacity());
+		}
+		try (PipelinedSink sink = new PipelinedSink(new StringWriter(), 1)) {
+			Assert.assertEquals(1, sink.capacity());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new PipelinedSink(new StringWriter(), 0);
+	}
+	
+	@Test(timeout = 10000)
+	public void testAppendWrapsAroundRing() throws IOException {
+		final String document = document(1000);
+		final RecordingWriter writer = new RecordingWriter(Integer.MAX_VALUE);
+		try (PipelinedSink sink = new PipelinedSink(writer, 16)) {
+			int index = 0;
+			while (index < document.length()) {
+				final int end = Math.min(document.length(), index + 1 + index % 37);
+				Assert.assertEquals(sink, sink.append(document, index, end));
+				index = end;
+			}
+		}
+		Assert.assertEquals(document, writer.toString());
+		Assert.assertTrue(writer.closed);
+	}
+	
+	@Test(timeout = 10000)
+	public void testAppendCharactersAndBuilders() throws IOException {
+		final String document = document(100);
+		final StringBuilder destination = new StringBuilder();
+		try (PipelinedSink sink = new PipelinedSink(destination, 8)) {
+			for (int index = 0; index < document.length(); index++) {
+				sink.append(document.charAt(index));
+			}
+			sink.append(new StringBuilder(document));
+			sink.append(null);
+		}
+		Assert.assertEquals(document + document + "null", destination.toString());
+	}
+	
+	@Test(timeout = 10000)
+	public void testEncodesOnWriterThread() throws IOException {
+		final String document = document(1000);
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (PipelinedSink sink = new PipelinedSink(new Utf8Sink(stream), 64)) {
+			sink.append(document);
+		}
+		Assert.assertArrayEquals(document.getBytes(StandardCharsets.UTF_8), stream.toByteArray());
+	}
+	
+	@Test(timeout = 10000)
+	public void testFlushWaitsForDestination() throws IOException {
+		final RecordingWriter writer = new RecordingWriter(Integer.MAX_VALUE);
+		try (PipelinedSink sink = new PipelinedSink(writer)) {
+			sink.append("first");
+			sink.flush();
+			Assert.assertEquals("first", writer.toString());
+			Assert.assertEquals(1, writer.flushes);
+			sink.append(" second");
+			sink.flush();
+			Assert.assertEquals("first second", writer.toString());
+			Assert.assertEquals(2, writer.flushes);
+		}
+	}
+	
+	@Test(timeout = 60000)
+	public void testFlushRacingWithAppends() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<?>> producers = new ArrayList<>();
+			for (int producer = 0; producer < 4; producer++) {
+				final int seed = producer;
+				producers.add(executor.submit(() -> {
+					final Random random = new Random(seed);
+					final StringWriter writer = new StringWriter();
+					long appended = 0;
+					try (PipelinedSink sink = new PipelinedSink(writer, 64)) {
+						for (int iteration = 0; iteration < 5000; iteration++) {
+							final int count = random.nextInt(100);
+							for (int index = 0; index < count; index++) {
+								sink.append((char) ('a' + index % 26));
+							}
+							final int end = random.nextInt(4);
+							sink.append("xyz", 0, end);
+							appended += count + end;
+							sink.flush();
+							Assert.assertEquals(appended, writer.getBuffer().length());
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> producer : producers) {
+				producer.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void testCloseSurfacesWriterFailure() throws IOException {
+		final PipelinedSink sink = new PipelinedSink(new RecordingWriter(10));
+		sink.append("more than ten characters");
+		try {
+			sink.close();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		Assert.assertTrue(sink.isClosed());
+	}
+	
+	@Test(timeout = 10000)
+	public void testFullBufferSurfacesWriterFailure() throws IOException {
+		final String document = document(1000);
+		try (PipelinedSink sink = new PipelinedSink(new RecordingWriter(100), 16)) {
+			try {
+				sink.append(document);
+				Assert.fail();
+			} catch (IOException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void testAppendAfterClose() throws IOException {
+		final PipelinedSink sink = new PipelinedSink(new StringWriter());
+		sink.close();
+		sink.append('a');
+	}
+	
+	@Test
+	public void testCloseTwice() throws IOException {
+		final RecordingWriter writer = new RecordingWriter(Integer.MAX_VALUE);
+		final PipelinedSink sink = new PipelinedSink(writer);
+		sink.append("text");
+		sink.close();
+		sink.close();
+		Assert.assertEquals("text", writer.toString());
+		Assert.assertEquals(1, writer.flushes);
+	}
+	
+	@Test
+	public void testAppendAfterWriterFailure() throws IOException {
+		final Writer writer = new RecordingWriter(0);
+		final PipelinedSink sink = new PipelinedSink(writer);
+		sink.append("text");
+		try {
+			sink.flush();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		try {
+			sink.append("more");
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+	
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class RenderPlanTest {
+	
+	/**
+	 * A node that outputs an element and passes its builder to consumers.
+	 */
+	private static final class Tag extends AbstractInscribable<StringBuilder, Tag, Tag> {
+		
+		private final StringBuilder builder;
+		private final String name;
+		private Tag child;
+		
+		Tag(final NodeStack stack, final StringBuilder builder, final String name) {
+			super(stack);
+			this.builder = builder;
+			this.name = name;
+		}
+		
+		static Tag root(final StringBuilder builder) {
+			final Tag root = new Tag(new NodeStack(), builder, "root");
+			root.open(null);
+			builder.append("<root>");
+			return root;
+		}
+		
+		Tag item() throws IOException {
+			if (child == null) child = new Tag(stack(), builder, "item");
+			openChild(child);
+			builder.append("<item>");
+			return child;
+		}
+		
+		@Override
+		protected StringBuilder inscribed() {
+			return builder;
+		}
+		
+		@Override
+		protected void onClose() {
+			builder.append("</").append(name).append('>');
+		}
+		
+	}
+	
+	/**
+	 * The data rendered by the plans under test.
+	 */
+	private static final class Envelope {
+		
+		private final String status;
+		private final String message;
+		private final List<String> items;
+		
+		Envelope(final String status, final String message, final List<String> items) {
+			this.status = status;
+			this.message = message;
+			this.items = items;
+		}
+		
+	}
+	
+	private static RenderPlan<Envelope, StringBuilder, Tag> plan() {
+		final RenderPlan<Envelope, StringBuilder, Tag> item = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.withData((envelope, builder) -> builder.append(envelope.status))
+				.build();
+		return new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.with(builder -> builder.append('{'))
+				.with(envelope -> envelope.status, (status, builder) -> builder.append(status))
+				.withIfNotNull(envelope -> envelope.message, (message, builder) -> builder.append(':').append(message))
+				.withEach(envelope -> envelope.items, (element, builder) -> builder.append(',').append(element))
+				.inscribe(Tag::item, item)
+				.with(builder -> builder.append('}'))
+				.build();
+	}
+	
+	@Test
+	public void testRender() throws IOException {
+		final RenderPlan<Envelope, StringBuilder, Tag> plan = plan();
+		Assert.assertEquals(7, plan.size());
+		final StringBuilder builder = new StringBuilder();
+		final Tag root = Tag.root(builder);
+		Assert.assertSame(root, plan.render(new Envelope("ok", "done", Arrays.asList("a", "b")), root));
+		root.close();
+		Assert.assertEquals("<root>{ok:done,a,b<item>ok</item>}</root>", builder.toString());
+	}
+	
+	@Test
+	public void testRenderIsRepeatable() throws IOException {
+		final RenderPlan<Envelope, StringBuilder, Tag> plan = plan();
+		final StringBuilder builder = new StringBuilder();
+		final Tag root = Tag.root(builder);
+		plan.render(new Envelope("ok", null, Arrays.asList("a")), root);
+		plan.render(new Envelope("error", "failed", Arrays.asList()), root);
+		root.close();
+		Assert.assertEquals("<root>{ok,a<item>ok</item>}{error:failed<item>error</item>}</root>", builder.toString());
+	}
+	
+	@Test
+	public void testNestedPlans() throws IOException {
+		final RenderPlan<Envelope, StringBuilder, Tag> inner = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.with(builder -> builder.append("x"))
+				.build();
+		final RenderPlan<Envelope, StringBuilder, Tag> middle = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.inscribe(Tag::item, inner)
+				.inscribe(Tag::item, inner)
+				.build();
+		final RenderPlan<Envelope, StringBuilder, Tag> outer = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.inscribe(Tag::item, middle)
+				.with(builder -> builder.append("y"))
+				.build();
+		Assert.assertEquals(6, outer.size());
+		final StringBuilder builder = new StringBuilder();
+		final Tag root = Tag.root(builder);
+		outer.render(null, root);
+		root.close();
+		Assert.assertEquals("<root><item><item>x</item><item>x</item></item>y</root>", builder.toString());
+	}
+	
+	@Test
+	public void testNestedNodeIsClosedWhenStepThrows() throws IOException {
+		final IOException exception = new IOException();
+		final RenderPlan<Envelope, StringBuilder, Tag> inner = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.with(builder -> {
+					builder.append("x");
+					throw exception;
+				})
+				.build();
+		final RenderPlan<Envelope, StringBuilder, Tag> outer = new RenderPlanBuilder<Envelope, StringBuilder, Tag>()
+				.inscribe(Tag::item, inner)
+				.build();
+		final StringBuilder builder = new StringBuilder();
+		final Tag root = Tag.root(builder);
+		try {
+			outer.render(null, root);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertSame(exception, e);
+		}
+		Assert.assertEquals("<root><item>x</item>", builder.toString());
+		root.with(output -> output.append("y"));
+		root.close();
+		Assert.assertEquals("<root><item>x</item>y</root>", builder.toString());
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testNullConsumer() {
+		new RenderPlanBuilder<Envelope, StringBuilder, Tag>().withData(null);
+	}
+	
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.metrics.ProfileFrame;
+import io.codecastle.scriptorium.metrics.RenderProfile;
+import io.codecastle.scriptorium.metrics.RenderProfiler;
+import java.io.IOException;
+import java.util.Iterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class RenderProfilerTest {
+	
+	@Test
+	public void testSamplesOneInInterval() {
+		final RenderProfiler profiler = new RenderProfiler(3);
+		int sampled = 0;
+		for (int document = 0; document < 9; document++) {
+			if (profiler.sample(null) != null) sampled++;
+		}
+		Assert.assertEquals(3, sampled);
+	}
+	
+	@Test
+	public void testBuildsTree() {
+		final RenderProfiler profiler = new RenderProfiler(1);
+		final StringBuilder builder = new StringBuilder();
+		final RenderProfile profile = profiler.sample(builder::length);
+		profile.enter("html");
+		builder.append("<html>");
+		for (int item = 0; item < 3; item++) {
+			profile.enter("li");
+			builder.append("<li/>");
+			profile.exit();
+		}
+		profile.exit();
+		Assert.assertEquals(1, profile.roots().size());
+		final ProfileFrame html = profile.roots().get(0);
+		Assert.assertEquals("html", html.name());
+		Assert.assertEquals(1, html.count());
+		Assert.assertEquals(21, html.characters());
+		Assert.assertEquals(1, html.children().size());
+		final ProfileFrame li = html.children().iterator().next();
+		Assert.assertEquals(3, li.count());
+		Assert.assertEquals(15, li.characters());
+		Assert.assertTrue(li.totalNanos() <= html.totalNanos());
+		Assert.assertEquals(html.totalNanos() - li.totalNanos(), html.selfNanos());
+		Assert.assertEquals(1, profiler.sampledCount());
+	}
+	
+	@Test
+	public void testTotalsDocuments() {
+		final RenderProfiler profiler = new RenderProfiler(1);
+		for (int document = 0; document < 2; document++) {
+			final RenderProfile profile = profiler.sample(null);
+			profile.enter("doc");
+			profile.enter("head");
+			profile.exit();
+			profile.enter("body");
+			profile.exit();
+			profile.exit();
+		}
+		Assert.assertEquals(2, profiler.sampledCount());
+		final ProfileFrame totals = profiler.totals();
+		Assert.assertNull(totals.name());
+		final ProfileFrame doc = totals.children().iterator().next();
+		Assert.assertEquals(2, doc.count());
+		final Iterator<ProfileFrame> children = doc.children().iterator();
+		Assert.assertEquals("head", children.next().name());
+		Assert.assertEquals(2, children.next().count());
+	}
+	
+	@Test
+	public void testWriteFolded() throws IOException {
+		final RenderProfiler profiler = new RenderProfiler(1);
+		final RenderProfile profile = profiler.sample(null);
+		profile.enter("doc");
+		profile.enter("body");
+		spin();
+		profile.exit();
+		spin();
+		profile.exit();
+		final StringBuilder folded = new StringBuilder();
+		profiler.writeFolded(folded);
+		final String[] lines = folded.toString().split("\n");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertTrue(lines[0].matches("doc \\d+"));
+		Assert.assertTrue(lines[1].matches("doc;body \\d+"));
+	}
+	
+	@Test
+	public void testWriteFoldedReplacesSeparatorsInNames() throws IOException {
+		final RenderProfiler profiler = new RenderProfiler(1);
+		final RenderProfile profile = profiler.sample(null);
+		profile.enter("a;b c");
+		profile.enter("d\ne\tf");
+		spin();
+		profile.exit();
+		profile.exit();
+		final StringBuilder folded = new StringBuilder();
+		profiler.writeFolded(folded);
+		final String[] lines = folded.toString().split("\n");
+		Assert.assertTrue(lines[lines.length - 1].matches("a_b_c;d_e_f \\d+"));
+		Assert.assertEquals("a;b c", profiler.totals().children().iterator().next().name());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testExitWithoutEnter() {
+		new RenderProfiler(1).sample(null).exit();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidInterval() {
+		new RenderProfiler(0);
+	}
+	
+	private static void spin() {
+		final long start = System.nanoTime();
+		while (System.nanoTime() - start < 100000) {
+			Thread.yield();
+		}
+	}
+	
+}
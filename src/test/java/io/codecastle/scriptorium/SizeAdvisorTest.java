@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.ArenaSink;
+import io.codecastle.scriptorium.sink.CharChunkPool;
+import io.codecastle.scriptorium.sink.ChunkedCharBuffer;
+import io.codecastle.scriptorium.sink.SizeAdvisor;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class SizeAdvisorTest {
+	
+	@Test
+	public void testDefaultSizeWithoutRecords() {
+		final SizeAdvisor advisor = new SizeAdvisor(512);
+		Assert.assertEquals(512, advisor.estimate("page"));
+		Assert.assertEquals(512, advisor.newStringBuilder("page").capacity());
+		Assert.assertTrue(advisor.estimates().isEmpty());
+	}
+	
+	@Test
+	public void testEstimatesQuantile() {
+		final SizeAdvisor advisor = new SizeAdvisor(512);
+		for (int round = 0; round < 10; round++) {
+			for (int size = 1000; size < 2000; size += 10) {
+				advisor.record("page", size);
+			}
+		}
+		final int estimate = advisor.estimate("page");
+		Assert.assertTrue(estimate >= 1900);
+		Assert.assertTrue(estimate < 1900 * 5 / 4);
+		Assert.assertEquals(512, advisor.estimate("other"));
+	}
+	
+	@Test
+	public void testSingleRecord() {
+		final SizeAdvisor advisor = new SizeAdvisor(0);
+		advisor.record("page", 5);
+		Assert.assertEquals(5, advisor.estimate("page"));
+		advisor.record("empty", 0);
+		Assert.assertEquals(0, advisor.estimate("empty"));
+		advisor.record("large", Integer.MAX_VALUE);
+		Assert.assertEquals(Integer.MAX_VALUE, advisor.estimate("large"));
+	}
+	
+	@Test
+	public void testDecaysTowardRecentSizes() {
+		final SizeAdvisor advisor = new SizeAdvisor(512);
+		for (int record = 0; record < 10000; record++) {
+			advisor.record("page", 100000);
+		}
+		Assert.assertTrue(advisor.estimate("page") >= 100000);
+		for (int record = 0; record < 8 * SizeAdvisor.DECAY_INTERVAL; record++) {
+			advisor.record("page", 1000);
+		}
+		final int estimate = advisor.estimate("page");
+		Assert.assertTrue(estimate >= 1000);
+		Assert.assertTrue(estimate < 1250);
+	}
+	
+	@Test
+	public void testEstimates() {
+		final SizeAdvisor advisor = new SizeAdvisor(1.0, 16);
+		advisor.record(String.class, 100);
+		advisor.record(Integer.class, 3);
+		final Map<Object, Integer> estimates = advisor.estimates();
+		Assert.assertEquals(2, estimates.size());
+		Assert.assertEquals(Integer.valueOf(111), estimates.get(String.class));
+		Assert.assertEquals(Integer.valueOf(3), estimates.get(Integer.class));
+	}
+	
+	@Test
+	public void testNewBuffers() throws IOException {
+		final SizeAdvisor advisor = new SizeAdvisor(16);
+		advisor.record("page", 3000);
+		final ChunkedCharBuffer buffer = advisor.newChunkedCharBuffer("page", new CharChunkPool(1024, 16));
+		Assert.assertEquals("page", buffer.append("page").toString());
+		buffer.close();
+		final ArenaSink sink = advisor.newArenaSink("page", null);
+		sink.append("page").close();
+		Assert.assertEquals(4, sink.size());
+		sink.discard();
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testRecordNullKey() {
+		new SizeAdvisor(16).record(null, 1);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuantile() {
+		new SizeAdvisor(0, 16);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeSize() {
+		new SizeAdvisor(16).record("page", -1);
+	}
+	
+}
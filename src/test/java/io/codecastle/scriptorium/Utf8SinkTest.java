@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.Utf8Sink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * 
+ * @author Doug Valenta
+ */
+public class Utf8SinkTest {
+	
+	private static final String MIXED = "ASCII, caf\u00e9, \u4e2d\u6587, \ud83d\ude00 and \ud83c\udf89!";
+	
+	private static void assertEncoded(final String expected, final ByteArrayOutputStream stream) {
+		Assert.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), stream.toByteArray());
+	}
+	
+	@Test
+	public void testAppendSequence() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			final Utf8Sink result = sink.append(MIXED);
+			Assert.assertEquals(sink, result);
+		}
+		assertEncoded(MIXED, stream);
+	}
+	
+	@Test
+	public void testAppendCharacters() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			for (int index = 0; index < MIXED.length(); index++) {
+				Assert.assertEquals(sink, sink.append(MIXED.charAt(index)));
+			}
+		}
+		assertEncoded(MIXED, stream);
+	}
+	
+	@Test
+	public void testAppendRange() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			Assert.assertEquals(sink, sink.append(MIXED, 7, 18));
+		}
+		assertEncoded(MIXED.substring(7, 18), stream);
+	}
+	
+	@Test
+	public void testAppendNull() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			sink.append(null).append(null, 1, 3);
+		}
+		assertEncoded("nullul", stream);
+	}
+	
+	@Test
+	public void testSurrogatePairSplitAcrossAppends() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			sink.append("a\ud83d").append("\ude00b");
+			sink.append('\ud83c').append('\udf89');
+			sink.append("\ud83d").append('\ude00');
+			sink.append('\ud83c').append("\udf89c", 0, 2);
+		}
+		assertEncoded("a\ud83d\ude00b\ud83c\udf89\ud83d\ude00\ud83c\udf89c", stream);
+	}
+	
+	@Test
+	public void testUnpairedSurrogates() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream)) {
+			sink.append("\udc00a\ud800b\ud800").append('c').append('\ud800').append('\ud800');
+			sink.append("\ud800", 0, 1).append("", 0, 0).append('\ude00');
+			sink.append('\ud800');
+		}
+		Assert.assertEquals("?a?b?c??\ud800\ude00?", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testSmallBuffer() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream, 4)) {
+			sink.append(MIXED);
+			for (int index = 0; index < MIXED.length(); index++) {
+				sink.append(MIXED.charAt(index));
+			}
+		}
+		assertEncoded(MIXED + MIXED, stream);
+	}
+	
+	@Test
+	public void testRandomText() throws IOException {
+		final Random random = new Random(7);
+		final StringBuilder builder = new StringBuilder();
+		for (int index = 0; index < 20000; index++) {
+			switch (random.nextInt(4)) {
+				case 0:
+					builder.append((char) random.nextInt(0x80));
+					break;
+				case 1:
+					builder.append((char) random.nextInt(0x800));
+					break;
+				case 2:
+					builder.appendCodePoint(0x10000 + random.nextInt(0x100000));
+					break;
+				default:
+					builder.append((char) random.nextInt(0x10000));
+			}
+		}
+		final String text = builder.toString();
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (Utf8Sink sink = new Utf8Sink(stream, 61)) {
+			int index = 0;
+			while (index < text.length()) {
+				final int end = Math.min(text.length(), index + random.nextInt(50));
+				sink.append(text, index, end);
+				index = end;
+			}
+		}
+		assertEncoded(text, stream);
+	}
+	
+	@Test
+	public void testChannel() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		final WritableByteChannel channel = Channels.newChannel(stream);
+		try (Utf8Sink sink = new Utf8Sink(channel, 16)) {
+			sink.append(MIXED).append(MIXED);
+		}
+		assertEncoded(MIXED + MIXED, stream);
+		Assert.assertFalse(channel.isOpen());
+	}
+	
+	@Test
+	public void testFlush() throws IOException {
+		final OutputStream stream = Mockito.mock(OutputStream.class);
+		final Utf8Sink sink = new Utf8Sink(stream);
+		sink.append("abc");
+		Mockito.verifyZeroInteractions(stream);
+		sink.flush();
+		Mockito.verify(stream).write(Mockito.any(byte[].class), Mockito.eq(0), Mockito.eq(3));
+		Mockito.verify(stream).flush();
+		Mockito.verifyNoMoreInteractions(stream);
+	}
+	
+	@Test
+	public void testFlushRetainsHighSurrogate() throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		final Utf8Sink sink = new Utf8Sink(stream);
+		sink.append("a\ud83d");
+		sink.flush();
+		assertEncoded("a", stream);
+		sink.append('\ude00');
+		sink.close();
+		assertEncoded("a\ud83d\ude00", stream);
+	}
+	
+	@Test
+	public void testClose() throws IOException {
+		final OutputStream stream = Mockito.mock(OutputStream.class);
+		final Utf8Sink sink = new Utf8Sink(stream);
+		Assert.assertFalse(sink.isClosed());
+		sink.close();
+		sink.close();
+		Assert.assertTrue(sink.isClosed());
+		Mockito.verify(stream).write(Mockito.any(byte[].class), Mockito.eq(0), Mockito.eq(0));
+		Mockito.verify(stream).close();
+		Mockito.verifyNoMoreInteractions(stream);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testAppendAfterClose() throws IOException {
+		final Utf8Sink sink = new Utf8Sink(new ByteArrayOutputStream());
+		sink.close();
+		sink.append('a');
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBufferTooSmall() {
+		new Utf8Sink(new ByteArrayOutputStream(), 3);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAppendRangeOutOfBounds() throws IOException {
+		new Utf8Sink(new ByteArrayOutputStream()).append("abc", 2, 4);
+	}
+	
+}
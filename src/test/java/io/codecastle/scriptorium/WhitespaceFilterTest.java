@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Doug Valenta.
+ * Licensed under the terms of the MIT License.
+ */
+package io.codecastle.scriptorium;
+
+import io.codecastle.scriptorium.sink.WhitespaceFilter;
+import java.io.IOException;
+import java.io.Writer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Doug Valenta
+ */
+public class WhitespaceFilterTest {
+	
+	private static final String HTML = "<ul>\n  <li> one  </li>\r\n\t<li>two</li>\n</ul>\n";
+	
+	@Test
+	public void testCollapse() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final WhitespaceFilter filter = new WhitespaceFilter(builder);
+		Assert.assertEquals(filter, filter.append(HTML));
+		Assert.assertEquals("<ul> <li> one </li> <li>two</li> </ul> ", builder.toString());
+	}
+	
+	@Test
+	public void testRemove() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		new WhitespaceFilter(builder, WhitespaceFilter.Mode.REMOVE).append(HTML);
+		Assert.assertEquals("<ul><li>one</li><li>two</li></ul>", builder.toString());
+	}
+	
+	@Test
+	public void testRunsSpanAppends() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final WhitespaceFilter filter = new WhitespaceFilter(builder);
+		filter.append("a  ").append(' ').append("\n").append("\t b").append(' ').append('c');
+		Assert.assertEquals("a b c", builder.toString());
+	}
+	
+	@Test
+	public void testCharactersMatchSequences() throws IOException {
+		final StringBuilder characters = new StringBuilder();
+		final WhitespaceFilter filter = new WhitespaceFilter(characters);
+		for (int index = 0; index < HTML.length(); index++) {
+			filter.append(HTML.charAt(index));
+		}
+		final StringBuilder ranges = new StringBuilder();
+		new WhitespaceFilter(ranges).append("xx" + HTML + "xx", 2, HTML.length() + 2);
+		Assert.assertEquals(ranges.toString(), characters.toString());
+	}
+	
+	@Test
+	public void testProtectedRegions() throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		final WhitespaceFilter filter = new WhitespaceFilter(builder);
+		filter.append("<p>  a  </p>  <pre>");
+		filter.protect();
+		Assert.assertTrue(filter.isProtected());
+		filter.append("  x\n").protect().append("\t y").unprotect().append('\n').append(' ');
+		filter.unprotect();
+		Assert.assertFalse(filter.isProtected());
+		filter.append("</pre>  <p> b </p>");
+		Assert.assertEquals("<p> a </p> <pre>  x\n\t y\n </pre> <p> b </p>", builder.toString());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testUnprotectWithoutProtect() {
+		new WhitespaceFilter(new StringBuilder()).unprotect();
+	}
+	
+	@Test
+	public void testCopiesRunsInOneAppend() throws IOException {
+		final Appendable appendable = Mockito.mock(Appendable.class);
+		new WhitespaceFilter(appendable).append("abc   def");
+		Mockito.verify(appendable).append("abc   def", 0, 3);
+		Mockito.verify(appendable).append(' ');
+		Mockito.verify(appendable).append("abc   def", 6, 9);
+		Mockito.verifyNoMoreInteractions(appendable);
+	}
+	
+	@Test
+	public void testFlushAndClose() throws IOException {
+		final Writer writer = Mockito.mock(Writer.class);
+		final WhitespaceFilter filter = new WhitespaceFilter(writer);
+		filter.flush();
+		filter.close();
+		Mockito.verify(writer).flush();
+		Mockito.verify(writer).close();
+	}
+	
+}